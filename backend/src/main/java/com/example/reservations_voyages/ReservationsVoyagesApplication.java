@@ -2,12 +2,14 @@ package com.example.reservations_voyages;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application class for Reservations Voyages.
  * Spring Boot REST API for travel reservation management system.
  */
 @SpringBootApplication
+@EnableScheduling
 public class ReservationsVoyagesApplication {
 
 	public static void main(String[] args) {
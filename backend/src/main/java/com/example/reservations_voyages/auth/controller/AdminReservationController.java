@@ -1,12 +1,22 @@
 package com.example.reservations_voyages.auth.controller;
 
 import com.example.reservations_voyages.auth.dto.AdminReservationRow;
+import com.example.reservations_voyages.auth.dto.CursorPage;
 import com.example.reservations_voyages.auth.service.AdminReservationService;
+import com.example.reservations_voyages.auth.service.OptimisticRetry;
+import com.example.reservations_voyages.auth.service.ReservationExportService;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/admin/reservations")
@@ -15,32 +25,68 @@ import java.util.List;
 public class AdminReservationController {
 
     private final AdminReservationService service;
+    private final OptimisticRetry retry;
+    private final ReservationExportService exportService;
 
-    // ✅ LISTE
+    // ✅ LISTE (plus récentes d'abord, page suivante via nextCursor)
+    // ex: /api/admin/reservations?type=VOL&status=PENDING_PAYMENT&clientEmail=a@b.c&from=2026-01-01&size=50
     @GetMapping
-    public List<AdminReservationRow> all() {
-        return service.all();
+    public CursorPage<AdminReservationRow> all(@RequestParam(required = false) String type,
+                                               @RequestParam(required = false) ReservationStatus status,
+                                               @RequestParam(required = false) String clientEmail,
+                                               @RequestParam(required = false) LocalDate from,
+                                               @RequestParam(required = false) LocalDate to,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size) {
+        return service.feed(type, status, clientEmail, from, to, cursor, size);
+    }
+
+    // ✅ EXPORT (streaming, mémoire bornée) : csv ou ndjson, gzip optionnel
+    // ex: /api/admin/reservations/export?format=csv&gzip=true&status=CONFIRMED&from=2026-01-01&to=2026-01-31
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                        @RequestParam(required = false) String type,
+                                                        @RequestParam(required = false) ReservationStatus status,
+                                                        @RequestParam(required = false) LocalDate from,
+                                                        @RequestParam(required = false) LocalDate to,
+                                                        WebRequest request) {
+        // validé avant d'ouvrir la réponse (sinon l'erreur arriverait au milieu du flux)
+        ReservationExportService.checkParams(format, type);
+        // délai propre à l'export, appliqué au traitement asynchrone du flux qui suit
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportService.timeoutMs());
+
+        String filename = "reservations." + format + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : ReservationExportService.CSV.equals(format) ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+
+        StreamingResponseBody body = out -> exportService.export(out, format, gzip, type, status, from, to);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
     }
 
     // ✅ ANNULER
     @PatchMapping("/vol/{id}/cancel")
     public void cancelVol(@PathVariable Long id) {
-        service.cancelVol(id);
+        retry.run("admin.cancelVol", () -> service.cancelVol(id));
     }
 
     @PatchMapping("/hotel/{id}/cancel")
     public void cancelHotel(@PathVariable Long id) {
-        service.cancelHotel(id);
+        retry.run("admin.cancelHotel", () -> service.cancelHotel(id));
     }
 
     // ✅ SUPPRIMER
     @DeleteMapping("/vol/{id}")
     public void deleteVol(@PathVariable Long id) {
-        service.deleteVol(id);
+        retry.run("admin.deleteVol", () -> service.deleteVol(id));
     }
 
     @DeleteMapping("/hotel/{id}")
     public void deleteHotel(@PathVariable Long id) {
-        service.deleteHotel(id);
+        retry.run("admin.deleteHotel", () -> service.deleteHotel(id));
     }
 }
@@ -2,11 +2,14 @@ package com.example.reservations_voyages.auth.controller;
 
 import com.example.reservations_voyages.auth.dto.AdminReservationStatsResponse;
 import com.example.reservations_voyages.auth.service.AdminReservationStatsService;
+import com.example.reservations_voyages.auth.service.OptimisticRetry;
+import com.example.reservations_voyages.auth.service.ReservationStatsRollup;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/stats")
@@ -15,6 +18,8 @@ import java.time.LocalDate;
 public class AdminReservationStatsController {
 
     private final AdminReservationStatsService service;
+    private final OptimisticRetry retry;
+    private final ReservationStatsRollup rollup;
 
     // مثال: /api/admin/stats/reservations?from=2026-01-01&to=2026-12-31
     @GetMapping("/reservations")
@@ -24,4 +29,16 @@ public class AdminReservationStatsController {
     ) {
         return service.stats(from, to);
     }
+
+    // reconstruit l'agrégat journalier depuis les réservations (backfill / correction)
+    @PostMapping("/rollup/rebuild")
+    public void rebuildRollup() {
+        rollup.rebuildAll();
+    }
+
+    // conflits de version (verrou optimiste) par opération depuis le démarrage
+    @GetMapping("/conflicts")
+    public Map<String, Long> conflicts() {
+        return retry.metrics();
+    }
 }
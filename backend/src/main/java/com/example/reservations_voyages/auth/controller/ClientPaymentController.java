@@ -2,6 +2,8 @@ package com.example.reservations_voyages.auth.controller;
 
 import com.example.reservations_voyages.auth.dto.PayRequest;
 import com.example.reservations_voyages.auth.dto.PaymentResponse;
+import com.example.reservations_voyages.auth.service.IdempotencyService;
+import com.example.reservations_voyages.auth.service.OptimisticRetry;
 import com.example.reservations_voyages.auth.service.PaymentService;
 import com.example.reservations_voyages.user.entity.Payment;
 import jakarta.validation.Valid;
@@ -18,31 +20,31 @@ import org.springframework.web.bind.annotation.*;
 public class ClientPaymentController {
 
     private final PaymentService paymentService;
+    private final OptimisticRetry retry;
+    private final IdempotencyService idempotency;
 
     @PostMapping("/vol/{reservationId}")
     public PaymentResponse payVol(@PathVariable Long reservationId,
                                   @Valid @RequestBody PayRequest req,
+                                  @RequestHeader(value = "Idempotency-Key", required = false) String idemKey,
                                   Authentication auth) {
 
-        Payment p = paymentService.payForVol(auth.getName(), reservationId, req);
-
-        return new PaymentResponse(
-                p.getId(),
-                p.getReference(),
-                p.getAmount(),
-                p.getStatus().name(),
-                p.getMethod(),
-                p.getCreatedAt()
-        );
+        // même clé rejouée -> même paiement, pas de second Payment
+        return idempotency.execute(idemKey, auth.getName(), "payments/vol/" + reservationId, req, PaymentResponse.class,
+                () -> toResponse(retry.run("payForVol", () -> paymentService.payForVol(auth.getName(), reservationId, req))));
     }
 
     @PostMapping("/hotel/{reservationId}")
     public PaymentResponse payHotel(@PathVariable Long reservationId,
                                     @Valid @RequestBody PayRequest req,
+                                    @RequestHeader(value = "Idempotency-Key", required = false) String idemKey,
                                     Authentication auth) {
 
-        Payment p = paymentService.payForHotel(auth.getName(), reservationId, req);
+        return idempotency.execute(idemKey, auth.getName(), "payments/hotel/" + reservationId, req, PaymentResponse.class,
+                () -> toResponse(retry.run("payForHotel", () -> paymentService.payForHotel(auth.getName(), reservationId, req))));
+    }
 
+    private PaymentResponse toResponse(Payment p) {
         return new PaymentResponse(
                 p.getId(),
                 p.getReference(),
@@ -2,13 +2,18 @@ package com.example.reservations_voyages.auth.controller;
 
 import com.example.reservations_voyages.auth.dto.ReservationResponse;
 import com.example.reservations_voyages.auth.dto.ReserveHotelRequest;
+import com.example.reservations_voyages.auth.dto.ReserveTripRequest;
 import com.example.reservations_voyages.auth.dto.ReserveVolRequest;
 import com.example.reservations_voyages.auth.service.ClientReservationService;
+import com.example.reservations_voyages.auth.service.FlightBookingSequencer;
+import com.example.reservations_voyages.auth.service.IdempotencyService;
+import com.example.reservations_voyages.auth.service.OptimisticRetry;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.core.type.TypeReference;
 
 import java.util.List;
 
@@ -19,17 +24,41 @@ import java.util.List;
 public class ClientReservationController {
 
     private final ClientReservationService service;
+    private final OptimisticRetry retry;
+    private final FlightBookingSequencer sequencer;
+    private final IdempotencyService idempotency;
+
+    // Idempotency-Key (optionnel) : une nouvelle tentative du client rejoue la première réponse
 
     @PostMapping("/vols")
     public ReservationResponse reserveVol(@Valid @RequestBody ReserveVolRequest req,
+                                          @RequestHeader(value = "Idempotency-Key", required = false) String idemKey,
                                           Authentication auth) {
-        return service.reserveVol(auth.getName(), req); // auth.getName() = email
+        // auth.getName() = email
+        return idempotency.execute(idemKey, auth.getName(), "reservations/vols", req, ReservationResponse.class, () -> {
+            if (sequencer.isEnabled()) {
+                return sequencer.reserveVol(auth.getName(), req);
+            }
+            return retry.run("reserveVol", () -> service.reserveVol(auth.getName(), req));
+        });
     }
 
     @PostMapping("/hotels")
     public ReservationResponse reserveHotel(@Valid @RequestBody ReserveHotelRequest req,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String idemKey,
                                             Authentication auth) {
-        return service.reserveHotel(auth.getName(), req);
+        return idempotency.execute(idemKey, auth.getName(), "reservations/hotels", req, ReservationResponse.class,
+                () -> retry.run("reserveHotel", () -> service.reserveHotel(auth.getName(), req)));
+    }
+
+    // vols + hôtels en une seule transaction (tout ou rien)
+    @PostMapping("/trip")
+    public List<ReservationResponse> reserveTrip(@Valid @RequestBody ReserveTripRequest req,
+                                                 @RequestHeader(value = "Idempotency-Key", required = false) String idemKey,
+                                                 Authentication auth) {
+        return idempotency.execute(idemKey, auth.getName(), "reservations/trip", req,
+                new TypeReference<List<ReservationResponse>>() {},
+                () -> retry.run("reserveTrip", () -> service.reserveTrip(auth.getName(), req)));
     }
 
     @GetMapping
@@ -39,13 +68,13 @@ public class ClientReservationController {
     // ✅ ANNULATION VOL
     @PatchMapping("/vol/{id}/cancel")
     public void cancelVol(@PathVariable Long id, Authentication auth) {
-        service.cancelVol(auth.getName(), id);
+        retry.run("cancelVol", () -> service.cancelVol(auth.getName(), id));
     }
 
     // ✅ ANNULATION HOTEL
     @PatchMapping("/hotel/{id}/cancel")
     public void cancelHotel(@PathVariable Long id, Authentication auth) {
-        service.cancelHotel(auth.getName(), id);
+        retry.run("cancelHotel", () -> service.cancelHotel(auth.getName(), id));
     }
 
 }
@@ -1,13 +1,37 @@
 package com.example.reservations_voyages.auth.controller;
 
+import com.example.reservations_voyages.auth.dto.AvailableHotel;
+import com.example.reservations_voyages.auth.dto.CursorPage;
+import com.example.reservations_voyages.auth.dto.FareDay;
+import com.example.reservations_voyages.auth.dto.FlexibleFareMatrix;
+import com.example.reservations_voyages.auth.dto.HotelAvailabilityResponse;
+import com.example.reservations_voyages.auth.dto.HotelSearchResult;
+import com.example.reservations_voyages.auth.dto.HotelTextMatch;
+import com.example.reservations_voyages.auth.dto.HotelView;
+import com.example.reservations_voyages.auth.dto.ItinerarySearchResponse;
+import com.example.reservations_voyages.auth.dto.RouteFlight;
+import com.example.reservations_voyages.auth.dto.Suggestion;
+import com.example.reservations_voyages.auth.dto.VolSearchCriteria;
+import com.example.reservations_voyages.auth.dto.VolView;
+import com.example.reservations_voyages.auth.service.AutocompleteIndex;
+import com.example.reservations_voyages.auth.service.CatalogReadService;
+import com.example.reservations_voyages.auth.service.FlexibleDateSearchService;
+import com.example.reservations_voyages.auth.service.HotelSearchIndex;
+import com.example.reservations_voyages.auth.service.HotelTextIndex;
+import com.example.reservations_voyages.auth.service.InventoryService;
+import com.example.reservations_voyages.auth.service.ItinerarySearchService;
+import com.example.reservations_voyages.auth.service.VolRouteIndex;
+import com.example.reservations_voyages.auth.service.VolSearchService;
+import com.example.reservations_voyages.common.exception.ResourceNotFoundException;
 import com.example.reservations_voyages.user.entity.Hotel;
-import com.example.reservations_voyages.user.entity.Vol;
 import com.example.reservations_voyages.user.repo.HotelRepository;
-import com.example.reservations_voyages.user.repo.VolRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -16,17 +40,144 @@ import java.util.List;
 @PreAuthorize("hasRole('CLIENT')")
 public class ClientSearchController {
 
-    private final VolRepository volRepository;
     private final HotelRepository hotelRepository;
+    private final CatalogReadService catalogReadService;
+    private final InventoryService inventoryService;
+    private final VolSearchService volSearchService;
+    private final VolRouteIndex volRouteIndex;
+    private final ItinerarySearchService itinerarySearchService;
+    private final FlexibleDateSearchService flexibleDateSearchService;
+    private final HotelSearchIndex hotelSearchIndex;
+    private final HotelTextIndex hotelTextIndex;
+    private final AutocompleteIndex autocompleteIndex;
+
+    // 10 suggestions max, les plus réservées d'abord ; type = AEROPORT, VILLE ou PAYS (optionnel)
+    // ex: /api/client/autocomplete?q=par&type=VILLE
+    @GetMapping("/autocomplete")
+    public List<Suggestion> autocomplete(@RequestParam String q,
+                                         @RequestParam(required = false) String type) {
+        return autocompleteIndex.suggest(q, type);
+    }
 
     @GetMapping("/vols")
-    public List<Vol> vols() {
-        return volRepository.findAll();
+    public List<VolView> vols() {
+        return catalogReadService.vols();
+    }
+
+    // ex: /api/client/vols/search?aeroportDepart=CDG&aeroportArrivee=JFK&departFrom=2026-03-01&sort=PRIX&size=20
+    @GetMapping("/vols/search")
+    public CursorPage<VolView> searchVols(@RequestParam(required = false) String aeroportDepart,
+                                          @RequestParam(required = false) String aeroportArrivee,
+                                          @RequestParam(required = false) LocalDate departFrom,
+                                          @RequestParam(required = false) LocalDate departTo,
+                                          @RequestParam(required = false) Integer minPlaces,
+                                          @RequestParam(required = false) BigDecimal maxPrix,
+                                          @RequestParam(required = false) String statut,
+                                          @RequestParam(required = false) String compagnie,
+                                          @RequestParam(required = false) String sort,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer size) {
+        return volSearchService.search(new VolSearchCriteria(
+                aeroportDepart, aeroportArrivee, departFrom, departTo,
+                minPlaces, maxPrix, statut, compagnie, sort, cursor, size));
+    }
+
+    // trajet A→B depuis l'index mémoire (aucune requête SQL), triés par départ
+    // ex: /api/client/vols/route?from=CDG&to=JFK&departFrom=2026-03-01&departTo=2026-03-07&minPlaces=2
+    @GetMapping("/vols/route")
+    public List<RouteFlight> route(@RequestParam String from,
+                                   @RequestParam String to,
+                                   @RequestParam(required = false) LocalDate departFrom,
+                                   @RequestParam(required = false) LocalDate departTo,
+                                   @RequestParam(defaultValue = "1") int minPlaces) {
+        return volRouteIndex.search(from, to,
+                departFrom != null ? departFrom.atStartOfDay() : null,
+                departTo != null ? departTo.plusDays(1).atStartOfDay() : null,
+                minPlaces);
+    }
+
+    // calendrier des prix : prix mini par jour de départ sur un mois (index mémoire)
+    // ex: /api/client/vols/calendar?from=CDG&to=JFK&month=2026-03
+    @GetMapping("/vols/calendar")
+    public List<FareDay> fareCalendar(@RequestParam String from,
+                                      @RequestParam String to,
+                                      @RequestParam YearMonth month) {
+        return volRouteIndex.fareCalendar(from, to, month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    // dates flexibles : matrice des meilleurs prix aller (± flex jours) x retour (± flex jours)
+    // ex: /api/client/vols/flexible?from=CDG&to=JFK&dateAller=2026-03-10&dateRetour=2026-03-17&flex=3&nbPlaces=2
+    @GetMapping("/vols/flexible")
+    public FlexibleFareMatrix flexible(@RequestParam String from,
+                                       @RequestParam String to,
+                                       @RequestParam LocalDate dateAller,
+                                       @RequestParam(required = false) LocalDate dateRetour,
+                                       @RequestParam(defaultValue = "3") int flex,
+                                       @RequestParam(defaultValue = "1") int nbPlaces) {
+        return flexibleDateSearchService.search(from, to, dateAller, dateRetour, flex, nbPlaces);
+    }
+
+    // itinéraires avec correspondances (plus rapides / moins chers), réservables via /reservations/trip
+    // ex: /api/client/vols/itineraries?from=CDG&to=SYD&date=2026-03-01&nbPlaces=2&maxStops=2
+    @GetMapping("/vols/itineraries")
+    public ItinerarySearchResponse itineraries(@RequestParam String from,
+                                               @RequestParam String to,
+                                               @RequestParam LocalDate date,
+                                               @RequestParam(defaultValue = "1") int nbPlaces,
+                                               @RequestParam(required = false) Integer maxStops,
+                                               @RequestParam(required = false) Integer minConnectionMinutes,
+                                               @RequestParam(required = false) Integer maxConnectionMinutes,
+                                               @RequestParam(required = false) Integer limit) {
+        return itinerarySearchService.search(from, to, date, nbPlaces,
+                maxStops, minConnectionMinutes, maxConnectionMinutes, limit);
     }
 
     @GetMapping("/hotels")
-    public List<Hotel> hotels() {
-        return hotelRepository.findAll();
+    public List<HotelView> hotels() {
+        return catalogReadService.hotels();
+    }
+
+    // index mémoire (aucune requête SQL), triés par prix
+    // ex: /api/client/hotels/search?ville=Paris&etoiles=4&maxPrix=150&equipements=piscine&equipements=wifi
+    @GetMapping("/hotels/search")
+    public List<HotelSearchResult> searchHotels(@RequestParam(required = false) String ville,
+                                                @RequestParam(required = false) String pays,
+                                                @RequestParam(required = false) Integer etoiles,
+                                                @RequestParam(required = false) BigDecimal minPrix,
+                                                @RequestParam(required = false) BigDecimal maxPrix,
+                                                @RequestParam(required = false) List<String> equipements,
+                                                @RequestParam(defaultValue = "50") int size) {
+        return hotelSearchIndex.search(ville, pays, etoiles, minPrix, maxPrix, equipements,
+                Math.max(1, Math.min(200, size)));
+    }
+
+    // recherche tolérante aux fautes (nom, ville, adresse, description), meilleurs résultats d'abord
+    // ex: /api/client/hotels/text?q=hotel+de+la+plage+marseile&size=10
+    @GetMapping("/hotels/text")
+    public List<HotelTextMatch> searchHotelsText(@RequestParam String q,
+                                                 @RequestParam(defaultValue = "10") int size) {
+        return hotelTextIndex.search(q, Math.max(1, Math.min(50, size)));
+    }
+
+    // hôtels d'une ville avec N chambres libres sur tout le séjour, triés par prix
+    // ex: /api/client/hotels/available?ville=Paris&checkIn=2026-03-10&checkOut=2026-03-14&rooms=2
+    @GetMapping("/hotels/available")
+    public List<AvailableHotel> availableHotels(@RequestParam String ville,
+                                                @RequestParam LocalDate checkIn,
+                                                @RequestParam LocalDate checkOut,
+                                                @RequestParam(defaultValue = "1") int rooms,
+                                                @RequestParam(defaultValue = "50") int size) {
+        return hotelSearchIndex.available(ville, checkIn, checkOut, rooms, Math.max(1, Math.min(200, size)));
     }
-}
 
+    // ex: /api/client/hotels/3/availability?checkIn=2026-03-10&checkOut=2026-03-24
+    @GetMapping("/hotels/{id}/availability")
+    public HotelAvailabilityResponse hotelAvailability(@PathVariable Long id,
+                                                       @RequestParam LocalDate checkIn,
+                                                       @RequestParam LocalDate checkOut) {
+        Hotel hotel = hotelRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Hotel", id));
+        int rooms = inventoryService.minRoomsAvailable(hotel, checkIn, checkOut);
+        return new HotelAvailabilityResponse(id, checkIn, checkOut, rooms);
+    }
+}
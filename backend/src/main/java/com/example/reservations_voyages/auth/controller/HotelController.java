@@ -1,6 +1,8 @@
 package com.example.reservations_voyages.auth.controller;
 
+import com.example.reservations_voyages.auth.dto.HotelView;
 import com.example.reservations_voyages.user.entity.Hotel;
+import com.example.reservations_voyages.auth.service.CatalogReadService;
 import com.example.reservations_voyages.auth.service.HotelService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -17,16 +19,17 @@ import java.util.List;
 public class HotelController {
 
     private final HotelService hotelService;
+    private final CatalogReadService catalogReadService;
 
     @GetMapping
-    public ResponseEntity<List<Hotel>> getAllHotels() {
-        List<Hotel> hotels = hotelService.getAllHotels();
+    public ResponseEntity<List<HotelView>> getAllHotels() {
+        List<HotelView> hotels = catalogReadService.hotels();
         return ResponseEntity.ok(hotels);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Hotel> getHotelById(@PathVariable Long id) {
-        Hotel hotel = hotelService.getHotelById(id);
+    public ResponseEntity<HotelView> getHotelById(@PathVariable Long id) {
+        HotelView hotel = catalogReadService.hotel(id);
         return ResponseEntity.ok(hotel);
     }
 
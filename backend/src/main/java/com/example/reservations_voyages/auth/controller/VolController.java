@@ -1,6 +1,8 @@
 package com.example.reservations_voyages.auth.controller;
 
+import com.example.reservations_voyages.auth.dto.VolView;
 import com.example.reservations_voyages.user.entity.Vol;
+import com.example.reservations_voyages.auth.service.CatalogReadService;
 import com.example.reservations_voyages.auth.service.VolService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,16 +20,17 @@ import java.util.List;
 public class VolController {
 
     private final VolService volService;
+    private final CatalogReadService catalogReadService;
 
     @GetMapping
-    public ResponseEntity<List<Vol>> getAllVols() {
-        List<Vol> vols = volService.getAllVols();
+    public ResponseEntity<List<VolView>> getAllVols() {
+        List<VolView> vols = catalogReadService.vols();
         return ResponseEntity.ok(vols);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Vol> getVolById(@PathVariable Long id) {
-        Vol vol = volService.getVolById(id);
+    public ResponseEntity<VolView> getVolById(@PathVariable Long id) {
+        VolView vol = catalogReadService.vol(id);
         return ResponseEntity.ok(vol);
     }
 
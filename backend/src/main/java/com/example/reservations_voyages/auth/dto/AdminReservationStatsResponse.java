@@ -29,8 +29,12 @@ public class AdminReservationStatsResponse {
     private List<LabelValue> byType;            // VOL vs HOTEL
     private List<LabelValue> byStatus;          // PENDING/CONFIRMED/CANCELED
 
-    // tops
+    // tops (approchés, voir ReservationTopKIndex)
     private List<TopClientRow> topClients;      // top 5 clients
     private List<TopItemRow> topVols;           // top vols
     private List<TopItemRow> topHotels;         // top hotels
+    // tout élément absent du top correspondant a au plus ce nombre de réservations
+    private long topClientsErrorBound;
+    private long topVolsErrorBound;
+    private long topHotelsErrorBound;
 }
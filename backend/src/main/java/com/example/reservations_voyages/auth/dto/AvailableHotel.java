@@ -0,0 +1,12 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+
+public record AvailableHotel(
+        Long id,
+        String nom,
+        String ville,
+        int etoiles,
+        BigDecimal prixParNuit,
+        int roomsAvailable     // chambresTotales - pic de chambres occupées sur la période
+) {}
@@ -0,0 +1,8 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor      // null = dernière page ; sinon à renvoyer dans ?cursor=
+) {}
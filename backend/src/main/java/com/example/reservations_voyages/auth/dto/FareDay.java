@@ -0,0 +1,10 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record FareDay(
+        LocalDate date,
+        BigDecimal prixMin,          // vols du jour ayant encore des places
+        int placesDisponibles        // total des places du jour sur le trajet
+) {}
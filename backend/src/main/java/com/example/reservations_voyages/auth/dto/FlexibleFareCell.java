@@ -0,0 +1,9 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+
+public record FlexibleFareCell(
+        Long volId,
+        Long volRetourId,        // null en aller simple
+        BigDecimal totalPrice    // (prix aller + prix retour) x nbPlaces, comme reserveVol
+) {}
@@ -0,0 +1,11 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record FlexibleFareMatrix(
+        List<LocalDate> datesAller,
+        List<LocalDate> datesRetour,               // vide en aller simple
+        List<List<FlexibleFareCell>> cells,        // [aller][retour], null si aucune combinaison
+        FlexibleFareCell cheapest
+) {}
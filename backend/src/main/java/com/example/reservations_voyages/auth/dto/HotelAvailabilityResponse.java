@@ -0,0 +1,10 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.time.LocalDate;
+
+public record HotelAvailabilityResponse(
+        Long hotelId,
+        LocalDate checkIn,
+        LocalDate checkOut,
+        int roomsAvailable     // min sur toutes les nuits [checkIn, checkOut)
+) {}
@@ -0,0 +1,14 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record HotelSearchResult(
+        Long id,
+        String nom,
+        String ville,
+        String pays,
+        int etoiles,
+        BigDecimal prixParNuit,
+        List<String> equipements
+) {}
@@ -0,0 +1,9 @@
+package com.example.reservations_voyages.auth.dto;
+
+public record HotelTextMatch(
+        Long id,
+        String nom,
+        String ville,
+        String pays,
+        double score        // 0..1 : part des trigrammes de la requête retrouvés (pondérée par champ)
+) {}
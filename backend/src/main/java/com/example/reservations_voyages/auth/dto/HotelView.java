@@ -0,0 +1,20 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// lecture catalogue : mêmes champs JSON que l'entité Hotel, équipements agrégés dans la même requête
+public record HotelView(
+        Long id,
+        String nom,
+        String adresse,
+        String ville,
+        String pays,
+        int etoiles,
+        BigDecimal prixParNuit,
+        int chambresTotales,
+        int chambresDisponibles,
+        String description,
+        List<String> equipements,
+        Long version
+) {}
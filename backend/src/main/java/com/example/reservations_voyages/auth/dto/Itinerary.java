@@ -0,0 +1,11 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record Itinerary(
+        List<ItineraryLeg> legs,
+        int correspondances,
+        long dureeMinutes,       // premier départ -> dernière arrivée
+        BigDecimal totalPrice    // somme des prixBase x nbPlaces
+) {}
@@ -0,0 +1,13 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ItineraryLeg(
+        Long volId,
+        String aeroportDepart,
+        String aeroportArrivee,
+        LocalDateTime dateHeureDepart,
+        LocalDateTime dateHeureArrivee,
+        BigDecimal prixBase
+) {}
@@ -0,0 +1,8 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.util.List;
+
+public record ItinerarySearchResponse(
+        List<Itinerary> fastest,
+        List<Itinerary> cheapest
+) {}
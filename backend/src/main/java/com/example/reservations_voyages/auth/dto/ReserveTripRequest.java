@@ -0,0 +1,10 @@
+package com.example.reservations_voyages.auth.dto;
+
+import jakarta.validation.Valid;
+
+import java.util.List;
+
+public record ReserveTripRequest(
+        List<@Valid ReserveVolRequest> vols,       // nullable / vide
+        List<@Valid ReserveHotelRequest> hotels    // nullable / vide
+) {}
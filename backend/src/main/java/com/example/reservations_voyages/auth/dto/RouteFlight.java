@@ -0,0 +1,11 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record RouteFlight(
+        Long volId,
+        LocalDateTime dateHeureDepart,
+        BigDecimal prixBase,
+        int placesDisponibles
+) {}
@@ -0,0 +1,7 @@
+package com.example.reservations_voyages.auth.dto;
+
+public record Suggestion(
+        String type,          // AEROPORT, VILLE ou PAYS
+        String label,
+        long popularite       // nombre de réservations (hors annulées)
+) {}
@@ -11,6 +11,7 @@ public class TopClientRow {
     private Long clientId;
     private String clientName;
     private String clientEmail;
-    private long reservationsCount;
+    private long reservationsCount;        // estimation haute
+    private long reservationsCountError;   // surestimation max
     private BigDecimal revenueConfirmed;
 }
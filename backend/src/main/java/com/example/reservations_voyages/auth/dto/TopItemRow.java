@@ -2,11 +2,19 @@ package com.example.reservations_voyages.auth.dto;
 
 import lombok.*;
 
+import java.math.BigDecimal;
+
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Builder
 public class TopItemRow {
     private Long itemId;     // vol_id ou hotel_id
-    private String label;    // numero vol / nom hotel (si dispo)
-    private long count;      // nb reservations
+    private String label;    // numero vol / nom hotel
+    private String compagnie; // VOL
+    private String route;    // VOL : "CMN→CDG"
+    private String ville;    // HOTEL
+    private long count;      // nb reservations (estimation haute, voir countError)
+    private long countError; // surestimation max : count - countError <= réel <= count
+    private BigDecimal revenueConfirmed; // CA confirmé sur la période
+    private long unitsSold;  // places (VOL) / chambres (HOTEL) des réservations confirmées
 }
@@ -0,0 +1,18 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record VolSearchCriteria(
+        String aeroportDepart,
+        String aeroportArrivee,
+        LocalDate departFrom,     // inclus
+        LocalDate departTo,       // inclus
+        Integer minPlaces,
+        BigDecimal maxPrix,
+        String statut,
+        String compagnie,
+        String sort,              // DEPART (défaut) | PRIX
+        String cursor,
+        Integer size
+) {}
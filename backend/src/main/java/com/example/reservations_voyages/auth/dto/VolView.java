@@ -0,0 +1,19 @@
+package com.example.reservations_voyages.auth.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// lecture catalogue : mêmes champs JSON que l'entité Vol, sans passer par Hibernate
+public record VolView(
+        Long id,
+        String numeroVol,
+        String compagnie,
+        String aeroportDepart,
+        String aeroportArrivee,
+        LocalDateTime dateHeureDepart,
+        LocalDateTime dateHeureArrivee,
+        int placesDisponibles,
+        BigDecimal prixBase,
+        String statut,
+        Long version
+) {}
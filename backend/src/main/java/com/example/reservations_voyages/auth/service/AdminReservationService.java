@@ -1,17 +1,23 @@
 package com.example.reservations_voyages.auth.service;
 
 import com.example.reservations_voyages.auth.dto.AdminReservationRow;
+import com.example.reservations_voyages.auth.dto.CursorPage;
 import com.example.reservations_voyages.common.exception.BadRequestException;
 import com.example.reservations_voyages.common.exception.ResourceNotFoundException;
 import com.example.reservations_voyages.user.entity.*;
 import com.example.reservations_voyages.user.repo.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -20,47 +26,84 @@ public class AdminReservationService {
 
     private final ReservationVolRepository reservationVolRepository;
     private final ReservationHotelRepository reservationHotelRepository;
-    private final VolRepository volRepository;
-    private final HotelRepository hotelRepository;
+    private final InventoryService inventoryService;
+    private final ReservationStatsRollup statsRollup;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final int DEFAULT_FEED_SIZE = 50;
+    private static final int MAX_FEED_SIZE = 200;
+
+    // ===================== FLUX (VOL + HOTEL), PAGINÉ PAR CURSEUR =====================
+    // une branche par table (ReservationFeedQuery), chacune bornée par l'index (created_at, id) ;
+    // fusion par UNION ALL
+    private static final RowMapper<AdminReservationRow> FEED_ROW = (rs, i) -> AdminReservationRow.builder()
+            .ref(rs.getString(1) + "-" + rs.getLong(2))
+            .type(rs.getString(1))
+            .id(rs.getLong(2))
+            .createdAt(rs.getTimestamp(3).toLocalDateTime())
+            .amount(rs.getBigDecimal(4))
+            .status(ReservationStatus.valueOf(rs.getString(5)))
+            .clientName(rs.getString(6))
+            .clientEmail(rs.getString(7))
+            .build();
 
-    // ===================== LIST ALL (VOL + HOTEL) =====================
     @Transactional(readOnly = true)
-    public List<AdminReservationRow> all() {
-        var vols = reservationVolRepository.findAll();
-        var hotels = reservationHotelRepository.findAll();
-
-        return Stream.concat(
-                        vols.stream().map(this::mapVol),
-                        hotels.stream().map(this::mapHotel)
-                )
-                .sorted(Comparator.comparing(AdminReservationRow::getCreatedAt).reversed())
-                .toList();
-    }
+    public CursorPage<AdminReservationRow> feed(String type, ReservationStatus status, String clientEmail,
+                                                LocalDate from, LocalDate to, String cursor, Integer size) {
+        ReservationFeedQuery query = new ReservationFeedQuery(type, status, clientEmail, from, to);
+        int limit = size == null ? DEFAULT_FEED_SIZE : Math.max(1, Math.min(MAX_FEED_SIZE, size));
+        FeedCursor after = cursor == null || cursor.isBlank() ? null : FeedCursor.decode(cursor);
+
+        List<String> branches = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        for (String t : query.types()) {
+            StringBuilder branch = new StringBuilder(query.branch(t, params));
+            if (after != null) {
+                // ordre global : created_at desc, id desc, type desc (HOTEL vient après VOL à égalité)
+                if (t.compareTo(after.type()) < 0) {
+                    branch.append(" and (r.created_at, r.id) <= (?, ?)");
+                } else {
+                    branch.append(" and (r.created_at, r.id) < (?, ?)");
+                }
+                params.add(after.createdAt());
+                params.add(after.id());
+            }
+            branch.append(" order by r.created_at desc, r.id desc limit ?");
+            params.add(limit + 1);
+            branches.add("(" + branch + ")");
+        }
+
+        String sql = String.join(" union all ", branches)
+                + " order by created_at desc, id desc, type desc limit ?";
+        params.add(limit + 1);
 
-    private AdminReservationRow mapVol(ReservationVol r) {
-        return AdminReservationRow.builder()
-                .ref("VOL-" + r.getId())
-                .id(r.getId())
-                .type("VOL")
-                .clientName(r.getClient().getFullName())
-                .clientEmail(r.getClient().getEmail())
-                .createdAt(r.getCreatedAt())
-                .amount(r.getTotalPrice())
-                .status(r.getStatus())
-                .build();
+        // size + 1 : la ligne en trop indique seulement qu'une page suivante existe
+        List<AdminReservationRow> rows = jdbcTemplate.query(sql, FEED_ROW, params.toArray());
+
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            AdminReservationRow last = rows.get(limit - 1);
+            next = new FeedCursor(last.getCreatedAt(), last.getType(), last.getId()).encode();
+        }
+        return new CursorPage<>(rows, next);
     }
 
-    private AdminReservationRow mapHotel(ReservationHotel r) {
-        return AdminReservationRow.builder()
-                .ref("HOTEL-" + r.getId())
-                .id(r.getId())
-                .type("HOTEL")
-                .clientName(r.getClient().getFullName())
-                .clientEmail(r.getClient().getEmail())
-                .createdAt(r.getCreatedAt())
-                .amount(r.getTotalPrice())
-                .status(r.getStatus())
-                .build();
+    // curseur opaque : "createdAt|type|id" en base64 url-safe
+    private record FeedCursor(LocalDateTime createdAt, String type, Long id) {
+        String encode() {
+            String raw = createdAt + "|" + type + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static FeedCursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+                return new FeedCursor(LocalDateTime.parse(parts[0]), parts[1], Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Curseur invalide");
+            }
+        }
     }
 
     // ===================== CANCEL VOL (ADMIN) =====================
@@ -75,18 +118,12 @@ public class AdminReservationService {
             throw new BadRequestException("Impossible d'annuler une réservation payée (CONFIRMED)");
         }
 
-        Vol aller = r.getVol();
-        aller.setPlacesDisponibles(aller.getPlacesDisponibles() + r.getNbPlaces());
-        volRepository.save(aller);
-
-        if (r.getVolRetour() != null) {
-            Vol retour = r.getVolRetour();
-            retour.setPlacesDisponibles(retour.getPlacesDisponibles() + r.getNbPlaces());
-            volRepository.save(retour);
-        }
+        inventoryService.releaseVol(r);
 
+        ReservationStatus before = r.getStatus();
         r.setStatus(ReservationStatus.CANCELED);
         reservationVolRepository.save(r);
+        statsRollup.statusChanged(r, before);
     }
 
     // ===================== CANCEL HOTEL (ADMIN) =====================
@@ -101,12 +138,12 @@ public class AdminReservationService {
             throw new BadRequestException("Impossible d'annuler une réservation payée (CONFIRMED)");
         }
 
-        Hotel h = r.getHotel();
-        h.setChambresDisponibles(h.getChambresDisponibles() + r.getRooms());
-        hotelRepository.save(h);
+        inventoryService.releaseHotel(r);
 
+        ReservationStatus before = r.getStatus();
         r.setStatus(ReservationStatus.CANCELED);
         reservationHotelRepository.save(r);
+        statsRollup.statusChanged(r, before);
     }
 
     // ===================== DELETE VOL (ADMIN) =====================
@@ -121,18 +158,11 @@ public class AdminReservationService {
 
         // Si pas encore annulée -> rendre les places avant suppression
         if (r.getStatus() != ReservationStatus.CANCELED) {
-            Vol aller = r.getVol();
-            aller.setPlacesDisponibles(aller.getPlacesDisponibles() + r.getNbPlaces());
-            volRepository.save(aller);
-
-            if (r.getVolRetour() != null) {
-                Vol retour = r.getVolRetour();
-                retour.setPlacesDisponibles(retour.getPlacesDisponibles() + r.getNbPlaces());
-                volRepository.save(retour);
-            }
+            inventoryService.releaseVol(r);
         }
 
         reservationVolRepository.delete(r);
+        statsRollup.deleted(r);
     }
 
     // ===================== DELETE HOTEL (ADMIN) =====================
@@ -146,11 +176,10 @@ public class AdminReservationService {
 
         // Si pas encore annulée -> rendre les chambres avant suppression
         if (r.getStatus() != ReservationStatus.CANCELED) {
-            Hotel h = r.getHotel();
-            h.setChambresDisponibles(h.getChambresDisponibles() + r.getRooms());
-            hotelRepository.save(h);
+            inventoryService.releaseHotel(r);
         }
 
         reservationHotelRepository.delete(r);
+        statsRollup.deleted(r);
     }
 }
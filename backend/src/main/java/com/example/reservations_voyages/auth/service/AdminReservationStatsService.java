@@ -2,47 +2,179 @@ package com.example.reservations_voyages.auth.service;
 
 import com.example.reservations_voyages.auth.dto.*;
 import com.example.reservations_voyages.user.repo.AdminStatsRepository;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Dashboard admin. Les deux lectures indépendantes (compteurs + série mensuelle, tops + libellés
+ * des tops) partent en parallèle sur un pool fixe partagé : sa taille borne le nombre de connexions
+ * prises par les stats, quel que soit le nombre d'admins. Pas de transaction englobante :
+ * l'appelant ne garde pas de connexion pendant l'attente.
+ *
+ * Réponses complètes en cache par (from, to), calcul partagé entre requêtes simultanées.
+ * Période passée : invalidée quand une réservation créée dans la période change (après commit).
+ * Période qui touche aujourd'hui : TTL court, sans invalidation (sinon chaque réservation la viderait).
+ */
 @Service
-@RequiredArgsConstructor
-@Transactional(readOnly = true)
 public class AdminReservationStatsService {
 
+    private static final int TOP_N = 5;
+
+    private record Range(LocalDate from, LocalDate to) {}
+
+    private record Cached(CompletableFuture<AdminReservationStatsResponse> value, Instant expiresAt, boolean live) {}
+
+    private record DetailKey(String kind, long id) {}
+
+    // ligne de AdminStatsRepository.topDetails : label = numéro vol / nom hôtel / nom client,
+    // contact = compagnie (vol) ou email (client), place = route (vol) ou ville (hôtel)
+    private record TopDetail(String label, String contact, String place, BigDecimal revenue, long units) {
+
+        static final TopDetail NONE = new TopDetail(null, null, null, BigDecimal.ZERO, 0);
+
+        static TopDetail of(Object[] r) {
+            return new TopDetail((String) r[2], (String) r[3], (String) r[4],
+                    (BigDecimal) r[5], ((Number) r[6]).longValue());
+        }
+    }
+
+    private record Tops(ReservationTopKIndex.TopK clients, ReservationTopKIndex.TopK vols,
+                        ReservationTopKIndex.TopK hotels, Map<DetailKey, TopDetail> details) {
+
+        // vol / hôtel / client supprimé depuis : pas de détail
+        TopDetail detail(String kind, long id) {
+            return details.getOrDefault(new DetailKey(kind, id), TopDetail.NONE);
+        }
+    }
+
     private final AdminStatsRepository repo;
+    private final ReservationTopKIndex topK;
+    private final ExecutorService executor;
+    private final Duration ttl;
+    private final Duration liveTtl;
+    private final Map<Range, Cached> cache;
+
+    public AdminReservationStatsService(AdminStatsRepository repo,
+                                        ReservationTopKIndex topK,
+                                        @Value("${app.stats.db-concurrency:4}") int dbConcurrency,
+                                        @Value("${app.stats.cache.ttl-ms:600000}") long ttlMs,
+                                        @Value("${app.stats.cache.today-ttl-ms:15000}") long liveTtlMs,
+                                        @Value("${app.stats.cache.size:256}") int cacheSize) {
+        this.repo = repo;
+        this.topK = topK;
+        this.executor = Executors.newFixedThreadPool(dbConcurrency);
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.liveTtl = Duration.ofMillis(liveTtlMs);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Range, Cached> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
 
     public AdminReservationStatsResponse stats(LocalDate from, LocalDate to) {
-        // inclusif -> exclusif (fin du jour)
-        LocalDateTime fromDt = from.atStartOfDay();
-        LocalDateTime toDt = to.plusDays(1).atTime(LocalTime.MIDNIGHT);
+        Range key = new Range(from, to);
+        Instant now = Instant.now();
+        boolean live = !to.isBefore(LocalDate.now());
 
-        long total = repo.totalCount(fromDt, toDt);
-        long volCount = repo.volCount(fromDt, toDt);
-        long hotelCount = repo.hotelCount(fromDt, toDt);
+        Cached c;
+        boolean owner = false;
+        synchronized (cache) {
+            c = cache.get(key);
+            if (c == null || c.expiresAt().isBefore(now) || c.value().isCompletedExceptionally()) {
+                c = new Cached(new CompletableFuture<>(), now.plus(live ? liveTtl : ttl), live);
+                cache.put(key, c);
+                owner = true;
+            }
+        }
 
-        long pending = repo.pendingCount(fromDt, toDt);
-        long confirmed = repo.confirmedCount(fromDt, toDt);
-        long canceled = repo.canceledCount(fromDt, toDt);
+        if (owner) {
+            try {
+                c.value().complete(compute(from, to));
+            } catch (RuntimeException e) {
+                cache.remove(key, c);
+                c.value().completeExceptionally(e);
+            }
+        }
+        try {
+            return c.value().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
 
-        double cancelRate = total == 0 ? 0.0 : (canceled * 100.0) / total;
+    // ===================== INVALIDATION =====================
+    // jours de création des réservations modifiées (appelé après commit par ReservationStatsRollup)
+    public void invalidate(Collection<LocalDate> days) {
+        synchronized (cache) {
+            cache.entrySet().removeIf(e -> !e.getValue().live() && days.stream().anyMatch(d ->
+                    !d.isBefore(e.getKey().from()) && !d.isAfter(e.getKey().to())));
+        }
+    }
 
-        BigDecimal revenue = repo.revenueConfirmedTotal(fromDt, toDt);
+    public void invalidateAll() {
+        cache.clear();
+    }
 
-        // monthly
-        List<MonthPoint> monthly = repo.monthly(fromDt, toDt).stream().map(r -> {
-            String month = (String) r[0];
-            long cnt = ((Number) r[1]).longValue();
-            BigDecimal rev = (BigDecimal) r[2];
-            return MonthPoint.builder().month(month).count(cnt).revenue(rev).build();
-        }).toList();
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // ===================== CALCUL =====================
+    private AdminReservationStatsResponse compute(LocalDate from, LocalDate to) {
+        CompletableFuture<List<Object[]>> dashboardF =
+                CompletableFuture.supplyAsync(() -> repo.dashboard(from, to), executor);
+        CompletableFuture<Tops> topsF = CompletableFuture.supplyAsync(() -> tops(from, to), executor);
+
+        List<Object[]> dashboard;
+        Tops tops;
+        try {
+            dashboard = dashboardF.join();
+            tops = topsF.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+
+        long total = 0, volCount = 0, hotelCount = 0;
+        long pending = 0, confirmed = 0, canceled = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        List<MonthPoint> monthly = new ArrayList<>();
+
+        // une seule requête sur l'agrégat journalier : compteurs et série mensuelle (bornes incluses)
+        for (Object[] r : dashboard) {
+            long cnt = ((Number) r[2]).longValue();
+            BigDecimal rev = (BigDecimal) r[8];
+
+            if ("TOTAL".equals(r[0])) {
+                total = cnt;
+                volCount = ((Number) r[3]).longValue();
+                hotelCount = ((Number) r[4]).longValue();
+                pending = ((Number) r[5]).longValue();
+                confirmed = ((Number) r[6]).longValue();
+                canceled = ((Number) r[7]).longValue();
+                revenue = rev;
+            } else {
+                monthly.add(MonthPoint.builder().month((String) r[1]).count(cnt).revenue(rev).build());
+            }
+        }
+
+        double cancelRate = total == 0 ? 0.0 : (canceled * 100.0) / total;
 
         // byType / byStatus
         List<LabelValue> byType = List.of(
@@ -56,33 +188,35 @@ public class AdminReservationStatsService {
                 LabelValue.builder().label("CANCELED").value(canceled).build()
         );
 
-        // top clients
-        List<TopClientRow> topClients = repo.topClients(fromDt, toDt).stream().map(r -> {
-            Long clientId = ((Number) r[0]).longValue();
-            String name = (String) r[1];
-            String email = (String) r[2];
-            long cnt = ((Number) r[3]).longValue();
-            BigDecimal rev = (BigDecimal) r[4];
+        ReservationTopKIndex.TopK clients = tops.clients();
+        ReservationTopKIndex.TopK vols = tops.vols();
+        ReservationTopKIndex.TopK hotels = tops.hotels();
+
+        List<TopClientRow> topClients = clients.items().stream().map(e -> {
+            TopDetail d = tops.detail(ReservationStatsRollup.CLIENT, e.id());
             return TopClientRow.builder()
-                    .clientId(clientId)
-                    .clientName(name)
-                    .clientEmail(email)
-                    .reservationsCount(cnt)
-                    .revenueConfirmed(rev)
+                    .clientId(e.id())
+                    .clientName(d.label())
+                    .clientEmail(d.contact())
+                    .reservationsCount(e.count())
+                    .reservationsCountError(e.error())
+                    .revenueConfirmed(d.revenue())
                     .build();
         }).toList();
 
-        // top vols / hotels (label simple = id pour l’instant)
-        List<TopItemRow> topVols = repo.topVols(fromDt, toDt).stream().map(r -> {
-            Long id = ((Number) r[0]).longValue();
-            long cnt = ((Number) r[1]).longValue();
-            return TopItemRow.builder().itemId(id).label("VOL #" + id).count(cnt).build();
+        List<TopItemRow> topVols = vols.items().stream().map(e -> {
+            TopDetail d = tops.detail("VOL", e.id());
+            return topItem(e, d, "VOL")
+                    .compagnie(d.contact())
+                    .route(d.place())
+                    .build();
         }).toList();
 
-        List<TopItemRow> topHotels = repo.topHotels(fromDt, toDt).stream().map(r -> {
-            Long id = ((Number) r[0]).longValue();
-            long cnt = ((Number) r[1]).longValue();
-            return TopItemRow.builder().itemId(id).label("HOTEL #" + id).count(cnt).build();
+        List<TopItemRow> topHotels = hotels.items().stream().map(e -> {
+            TopDetail d = tops.detail("HOTEL", e.id());
+            return topItem(e, d, "HOTEL")
+                    .ville(d.place())
+                    .build();
         }).toList();
 
         return AdminReservationStatsResponse.builder()
@@ -100,6 +234,41 @@ public class AdminReservationStatsService {
                 .topClients(topClients)
                 .topVols(topVols)
                 .topHotels(topHotels)
+                .topClientsErrorBound(clients.errorBound())
+                .topVolsErrorBound(vols.errorBound())
+                .topHotelsErrorBound(hotels.errorBound())
                 .build();
     }
+
+    // vol / hôtel supprimé depuis : plus de libellé, on garde l'id
+    private static TopItemRow.TopItemRowBuilder topItem(ReservationTopKIndex.Estimate e, TopDetail d, String kind) {
+        return TopItemRow.builder()
+                .itemId(e.id())
+                .label(d.label() == null ? kind + " #" + e.id() : d.label())
+                .count(e.count())
+                .countError(e.error())
+                .revenueConfirmed(d.revenue())
+                .unitsSold(d.units());
+    }
+
+    // tops : classement approché en mémoire, puis libellés, CA et volumes des élus en une requête
+    private Tops tops(LocalDate from, LocalDate to) {
+        ReservationTopKIndex.TopK clients = topK.top(ReservationStatsRollup.CLIENT, from, to, TOP_N);
+        ReservationTopKIndex.TopK vols = topK.top("VOL", from, to, TOP_N);
+        ReservationTopKIndex.TopK hotels = topK.top("HOTEL", from, to, TOP_N);
+
+        Map<DetailKey, TopDetail> details = new HashMap<>();
+        if (!clients.items().isEmpty() || !vols.items().isEmpty() || !hotels.items().isEmpty()) {
+            repo.topDetails(from, to, ids(vols), ids(hotels), ids(clients))
+                    .forEach(r -> details.put(new DetailKey((String) r[0], ((Number) r[1]).longValue()),
+                            TopDetail.of(r)));
+        }
+        return new Tops(clients, vols, hotels, details);
+    }
+
+    // "in ()" est invalide en SQL : liste vide -> id 0, jamais attribué
+    private static List<Long> ids(ReservationTopKIndex.TopK top) {
+        List<Long> ids = top.items().stream().map(ReservationTopKIndex.Estimate::id).toList();
+        return ids.isEmpty() ? List.of(0L) : ids;
+    }
 }
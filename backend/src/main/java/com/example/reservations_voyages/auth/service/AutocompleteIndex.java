@@ -0,0 +1,302 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.Suggestion;
+import com.example.reservations_voyages.common.index.ReloadableIndex;
+import com.example.reservations_voyages.common.tx.AfterCommit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplétion des aéroports (vols), villes et pays (hôtels).
+ *
+ * Arbre radix (trie compressé) : chaque nœud garde ses TOP_K meilleures suggestions
+ * (toutes confondues et par type), une requête se résume donc à descendre le préfixe.
+ * Chaque mot d'un libellé est indexé ("Paris Charles de Gaulle" sort aussi pour "gau").
+ * Un libellé existe tant qu'au moins un vol / hôtel l'utilise (mis à jour après commit) ;
+ * la popularité (nombre de réservations) est recalculée périodiquement.
+ */
+@Component
+public class AutocompleteIndex extends ReloadableIndex {
+
+    private static final int TOP_K = 10;
+
+    public static final String AEROPORT = "AEROPORT";
+    public static final String VILLE = "VILLE";
+    public static final String PAYS = "PAYS";
+
+    // libellé, nb de vols / hôtels qui l'utilisent, nb de réservations
+    private static final String AEROPORTS_SQL = """
+        select a, sum(refs), sum(res) from (
+            select aeroport_depart as a, count(*) as refs, 0 as res from vols group by aeroport_depart
+            union all
+            select aeroport_arrivee, count(*), 0 from vols group by aeroport_arrivee
+            union all
+            select v.aeroport_depart, 0, count(*) from reservation_vols r join vols v on v.id = r.vol_id
+            where r.status <> 'CANCELED' group by v.aeroport_depart
+            union all
+            select v.aeroport_arrivee, 0, count(*) from reservation_vols r join vols v on v.id = r.vol_id
+            where r.status <> 'CANCELED' group by v.aeroport_arrivee
+        ) t
+        group by a
+        """;
+    private static final String HOTELS_SQL = """
+        select h.%1$s, count(distinct h.id),
+               count(r.id) filter (where r.status <> 'CANCELED')
+        from hotels h
+        left join reservation_hotels r on r.hotel_id = h.id
+        group by h.%1$s
+        """;
+
+    private record Term(String type, String label, long refs, long popularite) {}
+
+    private static final Comparator<Term> RANK = Comparator
+            .comparingLong(Term::popularite).reversed()
+            .thenComparing(Comparator.comparingLong(Term::refs).reversed())
+            .thenComparing(Term::label);
+
+    private static final class Node {
+        String edge;                                        // libellé de l'arête depuis le parent
+        final Map<Character, Node> children = new HashMap<>();
+        final List<Term> terminals = new ArrayList<>(1);    // termes dont une clé se termine ici
+        List<Term> top = List.of();
+        Map<String, List<Term>> topByType = Map.of();
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node("");
+    private final Map<String, Term> terms = new HashMap<>(); // type + "\n" + libellé
+
+    public AutocompleteIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ===================== RECHERCHE =====================
+    public List<Suggestion> suggest(String prefix, String type) {
+        String p = norm(prefix);
+        if (p.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Node n = find(p);
+            if (n == null) return List.of();
+            List<Term> ranked = type == null ? n.top : n.topByType.getOrDefault(type, List.of());
+            return ranked.stream()
+                    .map(t -> new Suggestion(t.type(), t.label(), t.popularite()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // nœud dont le sous-arbre contient toutes les clés commençant par p
+    private Node find(String p) {
+        Node n = root;
+        int i = 0;
+        while (i < p.length()) {
+            Node c = n.children.get(p.charAt(i));
+            if (c == null) return null;
+            int rest = p.length() - i;
+            if (rest <= c.edge.length()) {
+                return c.edge.startsWith(p.substring(i)) ? c : null;
+            }
+            if (!p.startsWith(c.edge, i)) return null;
+            i += c.edge.length();
+            n = c;
+        }
+        return n;
+    }
+
+    // ===================== MISES A JOUR CATALOGUE (après commit) =====================
+    // ancien / nouveau libellé nullables (création, suppression)
+    public void labelChanged(String type, String oldLabel, String newLabel) {
+        if (Objects.equals(oldLabel, newLabel)) return;
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                if (oldLabel != null) addRefs(type, oldLabel, -1);
+                if (newLabel != null) addRefs(type, newLabel, 1);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void addRefs(String type, String label, int delta) {
+        String k = type + "\n" + label;
+        Term old = terms.get(k);
+        long refs = (old == null ? 0 : old.refs()) + delta;
+        long pop = old == null ? 0 : old.popularite();
+
+        if (old != null) remove(old);
+        if (refs > 0) {
+            Term t = new Term(type, label, refs, pop);
+            terms.put(k, t);
+            insert(t);
+        } else {
+            terms.remove(k);
+        }
+    }
+
+    // ===================== ARBRE RADIX =====================
+    private void insert(Term t) {
+        for (String key : keys(t.label())) {
+            List<Node> path = new ArrayList<>();
+            Node n = root;
+            path.add(n);
+            int i = 0;
+            while (true) {
+                if (i == key.length()) {
+                    n.terminals.add(t);
+                    break;
+                }
+                Node c = n.children.get(key.charAt(i));
+                if (c == null) {
+                    Node leaf = new Node(key.substring(i));
+                    leaf.terminals.add(t);
+                    n.children.put(key.charAt(i), leaf);
+                    path.add(leaf);
+                    break;
+                }
+                int common = commonPrefix(c.edge, key, i);
+                if (common < c.edge.length()) {
+                    // découpe de l'arête : n -> mid(commun) -> c(reste)
+                    Node mid = new Node(c.edge.substring(0, common));
+                    c.edge = c.edge.substring(common);
+                    mid.children.put(c.edge.charAt(0), c);
+                    mid.top = c.top;
+                    mid.topByType = c.topByType;
+                    n.children.put(mid.edge.charAt(0), mid);
+                    c = mid;
+                }
+                i += common;
+                n = c;
+                path.add(n);
+            }
+            refreshTop(path);
+        }
+    }
+
+    private void remove(Term t) {
+        for (String key : keys(t.label())) {
+            List<Node> path = new ArrayList<>();
+            Node n = root;
+            path.add(n);
+            int i = 0;
+            while (n != null && i < key.length()) {
+                n = n.children.get(key.charAt(i));
+                if (n == null || !key.startsWith(n.edge, i)) {
+                    n = null;
+                    break;
+                }
+                i += n.edge.length();
+                path.add(n);
+            }
+            if (n == null) continue;
+            n.terminals.remove(t);
+
+            // élague les feuilles devenues vides
+            for (int d = path.size() - 1; d > 0; d--) {
+                Node x = path.get(d);
+                if (!x.terminals.isEmpty() || !x.children.isEmpty()) break;
+                path.get(d - 1).children.remove(x.edge.charAt(0));
+                path.remove(d);
+            }
+            refreshTop(path);
+        }
+    }
+
+    // top d'un nœud = meilleurs termes parmi ses terminaux et le top de ses enfants (de bas en haut)
+    private static void refreshTop(List<Node> path) {
+        for (int d = path.size() - 1; d >= 0; d--) {
+            Node n = path.get(d);
+            Set<Term> candidates = new HashSet<>(n.terminals);
+            for (Node c : n.children.values()) {
+                candidates.addAll(c.top);
+                c.topByType.values().forEach(candidates::addAll);
+            }
+            List<Term> ranked = candidates.stream().sorted(RANK).toList();
+
+            n.top = ranked.stream().limit(TOP_K).toList();
+            Map<String, List<Term>> byType = new HashMap<>();
+            for (Term t : ranked) {
+                List<Term> l = byType.computeIfAbsent(t.type(), k -> new ArrayList<>(TOP_K));
+                if (l.size() < TOP_K) l.add(t);
+            }
+            n.topByType = byType;
+        }
+    }
+
+    private static int commonPrefix(String edge, String key, int from) {
+        int j = 0;
+        while (j < edge.length() && from + j < key.length() && edge.charAt(j) == key.charAt(from + j)) j++;
+        return j;
+    }
+
+    // le libellé complet puis chaque fin de libellé commençant à un mot
+    private static Set<String> keys(String label) {
+        String n = norm(label);
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(n);
+        for (int i = 1; i < n.length(); i++) {
+            if (n.charAt(i - 1) == ' ') keys.add(n.substring(i));
+        }
+        keys.remove("");
+        return keys;
+    }
+
+    private static String norm(String s) {
+        if (s == null) return "";
+        return Normalizer.normalize(s, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("[^\\p{Alnum}]+", " ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    // ===================== CHARGEMENT =====================
+    @Override
+    protected String describe() {
+        return "Autocomplete index: " + terms.size() + " libellé(s)";
+    }
+
+    // popularité recalculée depuis les réservations
+    @Override
+    @Scheduled(fixedDelayString = "${app.search.autocomplete.refresh-ms:600000}",
+            initialDelayString = "${app.search.autocomplete.refresh-ms:600000}")
+    public void rebuild() {
+        List<Term> loaded = new ArrayList<>();
+        jdbcTemplate.query(AEROPORTS_SQL, rs -> {
+            loaded.add(new Term(AEROPORT, rs.getString(1), rs.getLong(2), rs.getLong(3)));
+        });
+        jdbcTemplate.query(HOTELS_SQL.formatted("ville"), rs -> {
+            loaded.add(new Term(VILLE, rs.getString(1), rs.getLong(2), rs.getLong(3)));
+        });
+        jdbcTemplate.query(HOTELS_SQL.formatted("pays"), rs -> {
+            loaded.add(new Term(PAYS, rs.getString(1), rs.getLong(2), rs.getLong(3)));
+        });
+
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            terms.clear();
+            for (Term t : loaded) {
+                if (t.refs() <= 0 || t.label() == null) continue;
+                terms.put(t.type() + "\n" + t.label(), t);
+                insert(t);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
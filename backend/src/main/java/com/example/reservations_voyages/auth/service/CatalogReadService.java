@@ -0,0 +1,68 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.HotelView;
+import com.example.reservations_voyages.auth.dto.VolView;
+import com.example.reservations_voyages.common.exception.ResourceNotFoundException;
+import com.example.reservations_voyages.user.repo.VolRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lectures du catalogue (vols / hôtels) en read models : une requête SQL par appel,
+ * aucune entité managée ni collection lazy à initialiser.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CatalogReadService {
+
+    // équipements agrégés par hôtel : plus de N+1 sur hotel_equipements
+    private static final String HOTELS_SQL = """
+        select h.id, h.nom, h.adresse, h.ville, h.pays, h.etoiles, h.prix_par_nuit,
+               h.chambres_totales, h.chambres_disponibles, h.description, h.version,
+               array_remove(array_agg(e.equipement), null) as equipements
+        from hotels h
+        left join hotel_equipements e on e.hotel_id = h.id
+        %s
+        group by h.id
+        order by h.id
+        """;
+
+    private static final RowMapper<HotelView> HOTEL_VIEW = (rs, i) -> {
+        Array eq = rs.getArray(12);
+        List<String> equipements = eq == null ? List.of() : Arrays.asList((String[]) eq.getArray());
+        return new HotelView(
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getInt(6), rs.getBigDecimal(7), rs.getInt(8), rs.getInt(9), rs.getString(10),
+                equipements, rs.getLong(11));
+    };
+
+    private final VolRepository volRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<VolView> vols() {
+        return volRepository.findAllViews();
+    }
+
+    public VolView vol(Long id) {
+        return volRepository.findViewById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Vol", id));
+    }
+
+    public List<HotelView> hotels() {
+        return jdbcTemplate.query(HOTELS_SQL.formatted(""), HOTEL_VIEW);
+    }
+
+    public HotelView hotel(Long id) {
+        return jdbcTemplate.query(HOTELS_SQL.formatted("where h.id = ?"), HOTEL_VIEW, id).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Hotel", id));
+    }
+}
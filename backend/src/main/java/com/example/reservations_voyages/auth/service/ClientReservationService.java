@@ -4,6 +4,7 @@ import com.example.reservations_voyages.common.exception.BadRequestException;
 import com.example.reservations_voyages.common.exception.ResourceNotFoundException;
 import com.example.reservations_voyages.auth.dto.ReservationResponse;
 import com.example.reservations_voyages.auth.dto.ReserveHotelRequest;
+import com.example.reservations_voyages.auth.dto.ReserveTripRequest;
 import com.example.reservations_voyages.auth.dto.ReserveVolRequest;
 import com.example.reservations_voyages.user.entity.*;
 import com.example.reservations_voyages.user.repo.*;
@@ -13,8 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +28,10 @@ public class ClientReservationService {
     private final ReservationVolRepository reservationVolRepository;
     private final ReservationHotelRepository reservationHotelRepository;
 
+    private final InventoryService inventoryService;
+    private final HoldExpiryWheel holdExpiryWheel;
+    private final ReservationStatsRollup statsRollup;
+
     // ================== RESERVER UN VOL (PENDING_PAYMENT) ==================
     public ReservationResponse reserveVol(String userEmail, ReserveVolRequest req) {
         User client = userRepository.findByEmail(userEmail)
@@ -36,11 +40,88 @@ public class ClientReservationService {
         Vol volAller = volRepository.findById(req.volId())
                 .orElseThrow(() -> new ResourceNotFoundException("Vol", req.volId()));
 
-        // 1) Vérif places ALLER
-        if (volAller.getPlacesDisponibles() < req.nbPlaces()) {
-            throw new BadRequestException("Pas assez de places disponibles pour le vol aller");
+        ReservationVol r = buildReservationVol(client, volAller, req);
+
+        // Bloquer les places (aller + retour ensemble, sinon rien)
+        inventoryService.reserveVol(r);
+
+        r = reservationVolRepository.save(r);
+        holdExpiryWheel.scheduleVol(r.getId(), r.getCreatedAt());
+        statsRollup.created(r);
+        return toResponse(r);
+    }
+
+    // ================== RESERVER UN VOL : LOT (FlightBookingSequencer) ==================
+    // résultat d'une commande du lot : réponse OU erreur métier (les autres commandes ne sont pas affectées)
+    public record BatchOutcome(ReservationResponse response, RuntimeException error) {}
+
+    // toutes les commandes portent le même vol aller : un seul UPDATE de places par vol du lot.
+    // Aller et retours sont verrouillés en une passe par id croissant, comme InventoryService.reserveVols :
+    // deux lots de sens inverse (X->Y / Y->X) ne s'interbloquent pas.
+    public List<BatchOutcome> reserveVolBatch(Long volId, List<String> userEmails, List<ReserveVolRequest> reqs) {
+        Set<Long> ids = new TreeSet<>();
+        ids.add(volId);
+        reqs.forEach(q -> {
+            if (q.volRetourId() != null) ids.add(q.volRetourId());
+        });
+
+        // places restantes par vol verrouillé, décomptées au fil du lot
+        Map<Long, Integer> remaining = new HashMap<>();
+        Map<Long, Vol> locked = new HashMap<>();
+        for (Vol v : volRepository.findAllByIdForUpdate(ids)) {
+            locked.put(v.getId(), v);
+            remaining.put(v.getId(), v.getPlacesDisponibles());
         }
+        Vol volAller = locked.get(volId);
+        if (volAller == null) throw new ResourceNotFoundException("Vol", volId);
+
+        SortedMap<Long, Integer> taken = new TreeMap<>();
+        Map<String, User> clients = new HashMap<>();
+        List<BatchOutcome> outcomes = new ArrayList<>(reqs.size());
+
+        for (int i = 0; i < reqs.size(); i++) {
+            ReserveVolRequest req = reqs.get(i);
+            String email = userEmails.get(i);
+            try {
+                User client = clients.computeIfAbsent(email, e -> userRepository.findByEmail(e)
+                        .orElseThrow(() -> new ResourceNotFoundException("User", e)));
+
+                ReservationVol r = buildReservationVol(client, volAller, req);
+                int n = req.nbPlaces();
+                Long retourId = r.getVolRetour() != null ? r.getVolRetour().getId() : null;
+
+                if (remaining.get(volId) < n) {
+                    throw new BadRequestException("Pas assez de places disponibles pour le vol aller");
+                }
+                if (retourId != null && remaining.get(retourId) < n) {
+                    throw new BadRequestException("Pas assez de places disponibles pour le vol retour");
+                }
+                remaining.merge(volId, -n, Integer::sum);
+                taken.merge(volId, n, Integer::sum);
+                if (retourId != null) {
+                    remaining.merge(retourId, -n, Integer::sum);
+                    taken.merge(retourId, n, Integer::sum);
+                }
+
+                r = reservationVolRepository.save(r);
+                holdExpiryWheel.scheduleVol(r.getId(), r.getCreatedAt());
+                statsRollup.created(r);
+                outcomes.add(new BatchOutcome(toResponse(r), null));
+            } catch (BadRequestException | ResourceNotFoundException e) {
+                outcomes.add(new BatchOutcome(null, e));
+            }
+        }
+
+        // lignes déjà verrouillées : les UPDATE ne peuvent plus échouer
+        taken.forEach((id, n) -> {
+            volRepository.reservePlaces(id, n);
+            inventoryService.volSeatsTaken(id, n);
+        });
+        return outcomes;
+    }
 
+    // validations + prix ; la réservation n'est ni sauvegardée ni décomptée du stock
+    private ReservationVol buildReservationVol(User client, Vol volAller, ReserveVolRequest req) {
         Vol volRetour = null;
         boolean roundTrip = (req.volRetourId() != null);
 
@@ -52,12 +133,7 @@ public class ClientReservationService {
             volRetour = volRepository.findById(req.volRetourId())
                     .orElseThrow(() -> new ResourceNotFoundException("Vol", req.volRetourId()));
 
-            // 2) Vérif places RETOUR
-            if (volRetour.getPlacesDisponibles() < req.nbPlaces()) {
-                throw new BadRequestException("Pas assez de places disponibles pour le vol retour");
-            }
-
-            // 3) Validations (optionnel)
+            // 1) Validations (optionnel)
             if (!volAller.getAeroportDepart().equals(volRetour.getAeroportArrivee())
                     || !volAller.getAeroportArrivee().equals(volRetour.getAeroportDepart())) {
                 throw new BadRequestException("Le vol retour doit être l'inverse du vol aller (A→B puis B→A)");
@@ -70,22 +146,13 @@ public class ClientReservationService {
 
         }
 
-        // 4) Bloquer les places
-        volAller.setPlacesDisponibles(volAller.getPlacesDisponibles() - req.nbPlaces());
-        volRepository.save(volAller);
-
-        if (roundTrip) {
-            volRetour.setPlacesDisponibles(volRetour.getPlacesDisponibles() - req.nbPlaces());
-            volRepository.save(volRetour);
-        }
-
-        // 5) Calcul total
+        // 2) Calcul total
         BigDecimal total = volAller.getPrixBase().multiply(BigDecimal.valueOf(req.nbPlaces()));
         if (roundTrip) {
             total = total.add(volRetour.getPrixBase().multiply(BigDecimal.valueOf(req.nbPlaces())));
         }
 
-        // 6) Créer reservation
+        // 3) Créer reservation
         ReservationVol r = new ReservationVol();
         r.setClient(client);
         r.setVol(volAller);
@@ -99,9 +166,7 @@ public class ClientReservationService {
         } else {
             r.setTripType(TripType.ONE_WAY);
         }
-
-        r = reservationVolRepository.save(r);
-        return toResponse(r);
+        return r;
     }
 
     // ================== RESERVER UN HOTEL (PENDING_PAYMENT) ==================
@@ -112,18 +177,22 @@ public class ClientReservationService {
         Hotel hotel = hotelRepository.findById(req.hotelId())
                 .orElseThrow(() -> new ResourceNotFoundException("Hotel", req.hotelId()));
 
+        ReservationHotel r = buildReservationHotel(client, hotel, req);
+
+        inventoryService.reserveHotel(hotel, req.checkIn(), req.checkOut(), req.rooms());
+
+        r = reservationHotelRepository.save(r);
+        holdExpiryWheel.scheduleHotel(r.getId(), r.getCreatedAt());
+        statsRollup.created(r);
+        return toResponse(r);
+    }
+
+    private ReservationHotel buildReservationHotel(User client, Hotel hotel, ReserveHotelRequest req) {
         long nights = ChronoUnit.DAYS.between(req.checkIn(), req.checkOut());
         if (nights <= 0) {
             throw new BadRequestException("checkOut doit être après checkIn");
         }
 
-        if (hotel.getChambresDisponibles() < req.rooms()) {
-            throw new BadRequestException("Pas assez de chambres disponibles");
-        }
-
-        hotel.setChambresDisponibles(hotel.getChambresDisponibles() - req.rooms());
-        hotelRepository.save(hotel);
-
         BigDecimal total = hotel.getPrixParNuit()
                 .multiply(BigDecimal.valueOf(nights))
                 .multiply(BigDecimal.valueOf(req.rooms()));
@@ -136,9 +205,70 @@ public class ClientReservationService {
         r.setRooms(req.rooms());
         r.setTotalPrice(total);
         r.setStatus(ReservationStatus.PENDING_PAYMENT);
+        return r;
+    }
 
-        r = reservationHotelRepository.save(r);
-        return toResponse(r);
+    // ================== RESERVER UN VOYAGE (vols + hôtels, tout ou rien) ==================
+    public List<ReservationResponse> reserveTrip(String userEmail, ReserveTripRequest req) {
+        List<ReserveVolRequest> volReqs = req.vols() != null ? req.vols() : List.of();
+        List<ReserveHotelRequest> hotelReqs = req.hotels() != null ? req.hotels() : List.of();
+        if (volReqs.isEmpty() && hotelReqs.isEmpty()) {
+            throw new BadRequestException("Le voyage doit contenir au moins un vol ou un hôtel");
+        }
+
+        User client = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", userEmail));
+
+        // 1) Charger tous les vols (aller + retour) en une requête, puis valider chaque élément
+        Set<Long> volIds = new HashSet<>();
+        volReqs.forEach(v -> {
+            volIds.add(v.volId());
+            if (v.volRetourId() != null) volIds.add(v.volRetourId());
+        });
+        Map<Long, Vol> vols = new HashMap<>();
+        volRepository.findAllById(volIds).forEach(v -> vols.put(v.getId(), v));
+
+        List<ReservationVol> volReservations = new ArrayList<>();
+        for (ReserveVolRequest v : volReqs) {
+            Vol aller = vols.get(v.volId());
+            if (aller == null) throw new ResourceNotFoundException("Vol", v.volId());
+            volReservations.add(buildReservationVol(client, aller, v));
+        }
+
+        // hôtels triés par id : verrous toujours pris dans le même ordre entre deux voyages
+        List<ReserveHotelRequest> sortedHotels = hotelReqs.stream()
+                .sorted(Comparator.comparing(ReserveHotelRequest::hotelId).thenComparing(ReserveHotelRequest::checkIn))
+                .toList();
+        Map<Long, Hotel> hotels = new HashMap<>();
+        hotelRepository.findAllById(sortedHotels.stream().map(ReserveHotelRequest::hotelId).toList())
+                .forEach(h -> hotels.put(h.getId(), h));
+
+        List<ReservationHotel> hotelReservations = new ArrayList<>();
+        for (ReserveHotelRequest h : sortedHotels) {
+            Hotel hotel = hotels.get(h.hotelId());
+            if (hotel == null) throw new ResourceNotFoundException("Hotel", h.hotelId());
+            hotelReservations.add(buildReservationHotel(client, hotel, h));
+        }
+
+        // 2) Bloquer le stock (vols par id croissant, puis hôtels) ; un échec annule tout le voyage
+        inventoryService.reserveVols(volReservations);
+        for (ReservationHotel r : hotelReservations) {
+            inventoryService.reserveHotel(r.getHotel(), r.getCheckIn(), r.getCheckOut(), r.getRooms());
+        }
+
+        // 3) Enregistrer
+        List<ReservationResponse> res = new ArrayList<>();
+        for (ReservationVol r : reservationVolRepository.saveAll(volReservations)) {
+            holdExpiryWheel.scheduleVol(r.getId(), r.getCreatedAt());
+            statsRollup.created(r);
+            res.add(toResponse(r));
+        }
+        for (ReservationHotel r : reservationHotelRepository.saveAll(hotelReservations)) {
+            holdExpiryWheel.scheduleHotel(r.getId(), r.getCreatedAt());
+            statsRollup.created(r);
+            res.add(toResponse(r));
+        }
+        return res;
     }
 
     // ================== MES RESERVATIONS ==================
@@ -174,18 +304,12 @@ public class ClientReservationService {
             throw new BadRequestException("Impossible d'annuler une réservation payée (CONFIRMED)");
         }
 
-        Vol aller = r.getVol();
-        aller.setPlacesDisponibles(aller.getPlacesDisponibles() + r.getNbPlaces());
-        volRepository.save(aller);
-
-        if (r.getVolRetour() != null) {
-            Vol retour = r.getVolRetour();
-            retour.setPlacesDisponibles(retour.getPlacesDisponibles() + r.getNbPlaces());
-            volRepository.save(retour);
-        }
+        inventoryService.releaseVol(r);
 
+        ReservationStatus before = r.getStatus();
         r.setStatus(ReservationStatus.CANCELED);
         reservationVolRepository.save(r);
+        statsRollup.statusChanged(r, before);
     }
 
     // ================== ANNULER HOTEL ==================
@@ -204,12 +328,12 @@ public class ClientReservationService {
             throw new BadRequestException("Impossible d'annuler une réservation payée (CONFIRMED)");
         }
 
-        Hotel h = r.getHotel();
-        h.setChambresDisponibles(h.getChambresDisponibles() + r.getRooms());
-        hotelRepository.save(h);
+        inventoryService.releaseHotel(r);
 
+        ReservationStatus before = r.getStatus();
         r.setStatus(ReservationStatus.CANCELED);
         reservationHotelRepository.save(r);
+        statsRollup.statusChanged(r, before);
     }
 
     // ================== MAPPING RESPONSE ==================
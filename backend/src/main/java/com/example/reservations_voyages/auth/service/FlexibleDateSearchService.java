@@ -0,0 +1,146 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.FlexibleFareCell;
+import com.example.reservations_voyages.auth.dto.FlexibleFareMatrix;
+import com.example.reservations_voyages.auth.dto.RouteFlight;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recherche à dates flexibles (± N jours) : matrice des meilleurs prix aller x retour.
+ *
+ * Une seule lecture de {@link VolRouteIndex} par sens (A→B puis B→A, fenêtre de 2N+1 jours).
+ * Mêmes règles que reserveVol : le retour est l'inverse exact de l'aller et part après lui.
+ * Deux jours différents : meilleur aller du jour + meilleur retour du jour. Même jour :
+ * on ne garde que les paires où le retour part après l'aller.
+ */
+@Service
+@RequiredArgsConstructor
+public class FlexibleDateSearchService {
+
+    private static final int MAX_FLEX_DAYS = 7;
+
+    private final VolRouteIndex routeIndex;
+
+    public FlexibleFareMatrix search(String from, String to, LocalDate dateAller, LocalDate dateRetour,
+                                     int flexDays, int nbPlaces) {
+        if (from.equals(to)) {
+            throw new BadRequestException("Les aéroports de départ et d'arrivée doivent être différents");
+        }
+        if (flexDays < 0 || flexDays > MAX_FLEX_DAYS) {
+            throw new BadRequestException("flex doit être entre 0 et " + MAX_FLEX_DAYS);
+        }
+        if (nbPlaces < 1) {
+            throw new BadRequestException("nbPlaces doit être >= 1");
+        }
+        if (dateRetour != null && dateRetour.isBefore(dateAller)) {
+            throw new BadRequestException("La date de retour doit être après la date d'aller");
+        }
+
+        List<LocalDate> joursAller = days(dateAller, flexDays);
+        List<RouteFlight>[] aller = byDay(from, to, joursAller, nbPlaces);
+
+        if (dateRetour == null) {
+            List<List<FlexibleFareCell>> cells = new ArrayList<>();
+            FlexibleFareCell best = null;
+            for (List<RouteFlight> day : aller) {
+                RouteFlight a = cheapest(day);
+                FlexibleFareCell c = a == null ? null : new FlexibleFareCell(a.volId(), null, total(a, null, nbPlaces));
+                cells.add(Arrays.asList(c));
+                best = min(best, c);
+            }
+            return new FlexibleFareMatrix(joursAller, List.of(), cells, best);
+        }
+
+        List<LocalDate> joursRetour = days(dateRetour, flexDays);
+        List<RouteFlight>[] retour = byDay(to, from, joursRetour, nbPlaces);
+
+        List<List<FlexibleFareCell>> cells = new ArrayList<>();
+        FlexibleFareCell best = null;
+        for (int i = 0; i < joursAller.size(); i++) {
+            List<FlexibleFareCell> row = new ArrayList<>(joursRetour.size());
+            for (int j = 0; j < joursRetour.size(); j++) {
+                int cmp = joursRetour.get(j).compareTo(joursAller.get(i));
+                FlexibleFareCell c = null;
+                if (cmp > 0) {
+                    RouteFlight a = cheapest(aller[i]);
+                    RouteFlight r = cheapest(retour[j]);
+                    if (a != null && r != null) c = new FlexibleFareCell(a.volId(), r.volId(), total(a, r, nbPlaces));
+                } else if (cmp == 0) {
+                    c = sameDay(aller[i], retour[j], nbPlaces);
+                }
+                row.add(c);
+                best = min(best, c);
+            }
+            cells.add(row);
+        }
+        return new FlexibleFareMatrix(joursAller, joursRetour, cells, best);
+    }
+
+    // une lecture de l'index sur toute la fenêtre, puis répartition par jour (vols déjà triés par départ)
+    @SuppressWarnings("unchecked")
+    private List<RouteFlight>[] byDay(String from, String to, List<LocalDate> jours, int nbPlaces) {
+        LocalDate first = jours.get(0);
+        List<RouteFlight>[] out = new List[jours.size()];
+        for (int i = 0; i < out.length; i++) out[i] = new ArrayList<>();
+
+        for (RouteFlight f : routeIndex.search(from, to, first.atStartOfDay(),
+                jours.get(jours.size() - 1).plusDays(1).atStartOfDay(), nbPlaces)) {
+            out[(int) ChronoUnit.DAYS.between(first, f.dateHeureDepart().toLocalDate())].add(f);
+        }
+        return out;
+    }
+
+    // aller et retour le même jour : le retour doit partir après l'aller
+    private static FlexibleFareCell sameDay(List<RouteFlight> aller, List<RouteFlight> retour, int nbPlaces) {
+        FlexibleFareCell best = null;
+        // meilleur retour parmi ceux qui partent après chaque aller : suffixe des minimums
+        RouteFlight[] suffixMin = new RouteFlight[retour.size() + 1];
+        for (int j = retour.size() - 1; j >= 0; j--) {
+            RouteFlight r = retour.get(j);
+            suffixMin[j] = suffixMin[j + 1] == null || r.prixBase().compareTo(suffixMin[j + 1].prixBase()) < 0
+                    ? r : suffixMin[j + 1];
+        }
+        int j = 0;
+        for (RouteFlight a : aller) {
+            while (j < retour.size() && !retour.get(j).dateHeureDepart().isAfter(a.dateHeureDepart())) j++;
+            RouteFlight r = suffixMin[j];
+            if (r == null) break;
+            best = min(best, new FlexibleFareCell(a.volId(), r.volId(), total(a, r, nbPlaces)));
+        }
+        return best;
+    }
+
+    private static RouteFlight cheapest(List<RouteFlight> flights) {
+        RouteFlight best = null;
+        for (RouteFlight f : flights) {
+            if (best == null || f.prixBase().compareTo(best.prixBase()) < 0) best = f;
+        }
+        return best;
+    }
+
+    private static FlexibleFareCell min(FlexibleFareCell a, FlexibleFareCell b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.totalPrice().compareTo(a.totalPrice()) < 0 ? b : a;
+    }
+
+    private static BigDecimal total(RouteFlight aller, RouteFlight retour, int nbPlaces) {
+        BigDecimal unit = retour == null ? aller.prixBase() : aller.prixBase().add(retour.prixBase());
+        return unit.multiply(BigDecimal.valueOf(nbPlaces));
+    }
+
+    private static List<LocalDate> days(LocalDate center, int flex) {
+        List<LocalDate> out = new ArrayList<>(2 * flex + 1);
+        for (int d = -flex; d <= flex; d++) out.add(center.plusDays(d));
+        return out;
+    }
+}
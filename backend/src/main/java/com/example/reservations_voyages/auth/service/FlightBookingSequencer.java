@@ -0,0 +1,177 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.ReservationResponse;
+import com.example.reservations_voyages.auth.dto.ReserveVolRequest;
+import com.example.reservations_voyages.auth.service.ClientReservationService.BatchOutcome;
+import com.example.reservations_voyages.common.exception.ConflictException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mode "un seul écrivain par vol" (app.booking.sequencer.enabled=true).
+ *
+ * Chaque réservation est déposée dans la boîte aux lettres de son vol aller. Une boîte n'est
+ * vidée que par un thread à la fois : les commandes accumulées partent en un seul lot
+ * (une transaction, une ligne vols verrouillée, un UPDATE), puis chaque appelant reçoit sa réponse.
+ * Une commande encore en file après app.booking.sequencer.reply-timeout-ms est retirée (409) :
+ * l'attente reste plus courte que le délai d'abandon des Idempotency-Key en cours.
+ * Incompatible avec app.inventory.vols.in-memory (le mode mémoire est alors prioritaire).
+ */
+@Component
+public class FlightBookingSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightBookingSequencer.class);
+
+    // taken : pris par un lot OU abandonné par l'appelant (le premier des deux gagne)
+    private record Command(String email, ReserveVolRequest req, CompletableFuture<ReservationResponse> reply,
+                           AtomicBoolean taken) {}
+
+    // closed : retirée de la map (file vide, aucun lot en cours) ; écrit et lu sous le verrou de la clé
+    private static final class Mailbox {
+        final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean running = new AtomicBoolean();
+        boolean closed;
+    }
+
+    private final ClientReservationService reservationService;
+    private final OptimisticRetry retry;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long replyTimeoutMs;
+    private final ExecutorService executor;
+
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public FlightBookingSequencer(ClientReservationService reservationService,
+                                  OptimisticRetry retry,
+                                  SeatInventoryEngine seatEngine,
+                                  @Value("${app.booking.sequencer.enabled:false}") boolean enabled,
+                                  @Value("${app.booking.sequencer.max-batch:200}") int maxBatch,
+                                  @Value("${app.booking.sequencer.threads:8}") int threads,
+                                  @Value("${app.booking.sequencer.reply-timeout-ms:30000}") long replyTimeoutMs) {
+        this.reservationService = reservationService;
+        this.retry = retry;
+        this.maxBatch = maxBatch;
+        this.replyTimeoutMs = replyTimeoutMs;
+
+        if (enabled && seatEngine.isEnabled()) {
+            logger.warn("Booking sequencer ignoré : app.inventory.vols.in-memory est actif");
+            enabled = false;
+        }
+        this.enabled = enabled;
+        this.executor = enabled ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // bloque l'appelant jusqu'au commit du lot qui contient sa commande
+    public ReservationResponse reserveVol(String email, ReserveVolRequest req) {
+        Command cmd = new Command(email, req, new CompletableFuture<>(), new AtomicBoolean());
+        // dépôt atomique avec le retrait de la boîte (release) : jamais dans une boîte déjà retirée
+        Mailbox mb = mailboxes.compute(req.volId(), (id, cur) -> {
+            Mailbox m = cur == null || cur.closed ? new Mailbox() : cur;
+            m.queue.add(cmd);
+            return m;
+        });
+        trySchedule(req.volId(), mb);
+
+        try {
+            return cmd.reply().get(replyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // pas encore dans un lot : retirée, rien ne sera réservé
+            if (cmd.taken().compareAndSet(false, true)) {
+                throw new ConflictException("Vol très demandé, veuillez réessayer");
+            }
+            // déjà dans un lot (une transaction courte) : on attend son résultat
+            return await(cmd.reply());
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ReservationResponse await(CompletableFuture<ReservationResponse> reply) {
+        try {
+            return reply.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException re ? re : new IllegalStateException(cause);
+    }
+
+    private void trySchedule(Long volId, Mailbox mb) {
+        if (!mb.queue.isEmpty() && mb.running.compareAndSet(false, true)) {
+            executor.execute(() -> drain(volId, mb));
+        }
+    }
+
+    private void drain(Long volId, Mailbox mb) {
+        try {
+            List<Command> batch = new ArrayList<>();
+            Command c;
+            while (batch.size() < maxBatch && (c = mb.queue.poll()) != null) {
+                if (c.taken().compareAndSet(false, true)) batch.add(c);
+            }
+            if (!batch.isEmpty()) process(volId, batch);
+        } finally {
+            mb.running.set(false);
+            release(volId, mb);
+            trySchedule(volId, mb); // commandes arrivées pendant le lot
+        }
+    }
+
+    // une boîte par vol ayant des commandes en attente, pas une par vol déjà réservé
+    private void release(Long volId, Mailbox mb) {
+        mailboxes.computeIfPresent(volId, (id, cur) -> {
+            if (cur != mb || !mb.queue.isEmpty() || mb.running.get()) return cur;
+            mb.closed = true;
+            return null;
+        });
+    }
+
+    // boîtes encore en mémoire : vols avec des commandes en attente ou un lot en cours
+    int activeMailboxes() {
+        return mailboxes.size();
+    }
+
+    private void process(Long volId, List<Command> batch) {
+        List<String> emails = batch.stream().map(Command::email).toList();
+        List<ReserveVolRequest> reqs = batch.stream().map(Command::req).toList();
+
+        List<BatchOutcome> outcomes;
+        try {
+            outcomes = retry.run("sequencer.reserveVol", () -> reservationService.reserveVolBatch(volId, emails, reqs));
+        } catch (RuntimeException e) {
+            // lot entier annulé (vol introuvable, erreur base...) : même erreur pour tous
+            batch.forEach(cmd -> cmd.reply().completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            BatchOutcome o = outcomes.get(i);
+            if (o.error() != null) batch.get(i).reply().completeExceptionally(o.error());
+            else batch.get(i).reply().complete(o.response());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) executor.shutdown();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.user.entity.ReservationHotel;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+import com.example.reservations_voyages.user.entity.ReservationVol;
+import com.example.reservations_voyages.user.repo.ReservationHotelRepository;
+import com.example.reservations_voyages.user.repo.ReservationVolRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Durée de validité d'une réservation PENDING_PAYMENT et annulation des réservations expirées.
+ * Le paiement est refusé dès la fin du TTL ; l'annulation n'a lieu qu'après un délai de grâce
+ * supplémentaire, pour ne pas croiser un paiement commencé juste avant l'échéance.
+ */
+@Service
+@Transactional
+public class HoldExpiryService {
+
+    private final ReservationVolRepository reservationVolRepository;
+    private final ReservationHotelRepository reservationHotelRepository;
+    private final InventoryService inventoryService;
+    private final ReservationStatsRollup statsRollup;
+
+    private final Duration ttl;
+    private final Duration grace;
+
+    public HoldExpiryService(ReservationVolRepository reservationVolRepository,
+                             ReservationHotelRepository reservationHotelRepository,
+                             InventoryService inventoryService,
+                             ReservationStatsRollup statsRollup,
+                             @Value("${app.reservations.hold-ttl-minutes:30}") long ttlMinutes,
+                             @Value("${app.reservations.hold-expiry-grace-seconds:30}") long graceSeconds) {
+        this.reservationVolRepository = reservationVolRepository;
+        this.reservationHotelRepository = reservationHotelRepository;
+        this.inventoryService = inventoryService;
+        this.statsRollup = statsRollup;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.grace = Duration.ofSeconds(graceSeconds);
+    }
+
+    // fin de validité pour le paiement
+    public LocalDateTime paymentDeadline(LocalDateTime createdAt) {
+        return createdAt.plus(ttl);
+    }
+
+    public boolean isExpired(LocalDateTime createdAt) {
+        return LocalDateTime.now().isAfter(paymentDeadline(createdAt));
+    }
+
+    // moment où l'expiration annule effectivement la réservation
+    public LocalDateTime cancelAt(LocalDateTime createdAt) {
+        return paymentDeadline(createdAt).plus(grace);
+    }
+
+    // ===================== ANNULATION PAR LOTS =====================
+    // ids = candidats ; seules les réservations encore PENDING_PAYMENT et échues sont annulées
+    public int expireVols(Collection<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        int n = 0;
+        for (ReservationVol r : reservationVolRepository.lockByIdInAndStatus(ids, ReservationStatus.PENDING_PAYMENT)) {
+            if (now.isBefore(cancelAt(r.getCreatedAt()))) continue;
+            inventoryService.releaseVol(r);
+            r.setStatus(ReservationStatus.CANCELED);
+            statsRollup.statusChanged(r, ReservationStatus.PENDING_PAYMENT);
+            n++;
+        }
+        return n;
+    }
+
+    public int expireHotels(Collection<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        int n = 0;
+        for (ReservationHotel r : reservationHotelRepository.lockByIdInAndStatus(ids, ReservationStatus.PENDING_PAYMENT)) {
+            if (now.isBefore(cancelAt(r.getCreatedAt()))) continue;
+            inventoryService.releaseHotel(r);
+            r.setStatus(ReservationStatus.CANCELED);
+            statsRollup.statusChanged(r, ReservationStatus.PENDING_PAYMENT);
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.scheduling.SchedulingConfig;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+import com.example.reservations_voyages.user.repo.ReservationHotelRepository;
+import com.example.reservations_voyages.user.repo.ReservationVolRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Roue temporelle (hashed timing wheel) des réservations PENDING_PAYMENT.
+ * Chaque réservation est rangée dans la case de son échéance ; un tick ne parcourt que sa case,
+ * sans balayer les tables. La roue est reconstruite depuis la base au démarrage.
+ */
+@Component
+public class HoldExpiryWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldExpiryWheel.class);
+
+    private static final int WHEEL_SIZE = 512; // puissance de 2
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private record Hold(boolean vol, long id, long deadlineTick) {}
+
+    private final HoldExpiryService holdExpiryService;
+    private final ReservationVolRepository reservationVolRepository;
+    private final ReservationHotelRepository reservationHotelRepository;
+
+    private final Queue<Hold>[] wheel;
+    private final long tickMs;
+    private final int batchSize;
+    private final long retryTicks;
+    private final long startMs = System.currentTimeMillis();
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HoldExpiryWheel(HoldExpiryService holdExpiryService,
+                           ReservationVolRepository reservationVolRepository,
+                           ReservationHotelRepository reservationHotelRepository,
+                           @Value("${app.reservations.expiry-tick-ms:1000}") long tickMs,
+                           @Value("${app.reservations.expiry-batch-size:500}") int batchSize,
+                           @Value("${app.reservations.expiry-retry-ms:30000}") long retryMs) {
+        this.holdExpiryService = holdExpiryService;
+        this.reservationVolRepository = reservationVolRepository;
+        this.reservationHotelRepository = reservationHotelRepository;
+        this.tickMs = tickMs;
+        this.batchSize = batchSize;
+        this.retryTicks = Math.max(1, retryMs / tickMs);
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    // ===================== PLANIFICATION =====================
+    public void scheduleVol(Long reservationId, LocalDateTime createdAt) {
+        schedule(true, reservationId, createdAt);
+    }
+
+    public void scheduleHotel(Long reservationId, LocalDateTime createdAt) {
+        schedule(false, reservationId, createdAt);
+    }
+
+    private void schedule(boolean vol, long id, LocalDateTime createdAt) {
+        long at = holdExpiryService.cancelAt(createdAt).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long tick = Math.max(currentTick + 1, (at - startMs + tickMs - 1) / tickMs);
+        wheel[(int) (tick & MASK)].add(new Hold(vol, id, tick));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> vols = reservationVolRepository.findIdAndCreatedAtByStatus(ReservationStatus.PENDING_PAYMENT);
+        List<Object[]> hotels = reservationHotelRepository.findIdAndCreatedAtByStatus(ReservationStatus.PENDING_PAYMENT);
+        vols.forEach(r -> scheduleVol((Long) r[0], (LocalDateTime) r[1]));
+        hotels.forEach(r -> scheduleHotel((Long) r[0], (LocalDateTime) r[1]));
+        logger.info("Hold expiry: {} vol / {} hotel reservation(s) en attente de paiement", vols.size(), hotels.size());
+    }
+
+    // ===================== TICK =====================
+    @Scheduled(fixedDelayString = "${app.reservations.expiry-tick-ms:1000}",
+            scheduler = SchedulingConfig.INVENTORY_SCHEDULER)
+    public void advance() {
+        advanceTo((System.currentTimeMillis() - startMs) / tickMs);
+    }
+
+    void advanceTo(long nowTick) {
+        List<Long> vols = new ArrayList<>();
+        List<Long> hotels = new ArrayList<>();
+
+        while (currentTick < nowTick) {
+            long tick = currentTick + 1;
+            Queue<Hold> bucket = wheel[(int) (tick & MASK)];
+            // taille figée : les tours suivants remis en queue ne sont pas relus dans ce tick
+            for (int i = bucket.size(); i > 0; i--) {
+                Hold h = bucket.poll();
+                if (h == null) break;
+                if (h.deadlineTick() > tick) {
+                    bucket.add(h);
+                } else {
+                    (h.vol() ? vols : hotels).add(h.id());
+                }
+            }
+            currentTick = tick;
+        }
+
+        int expired = expire(true, vols) + expire(false, hotels);
+        if (expired > 0) {
+            logger.info("Hold expiry: {} réservation(s) non payée(s) annulée(s)", expired);
+        }
+    }
+
+    // un lot en échec (base indisponible, verrou...) n'arrête pas les suivants : ses ids sont
+    // replanifiés retryTicks plus tard (une réservation déjà payée entre-temps est ignorée par expire*)
+    private int expire(boolean vol, List<Long> ids) {
+        int expired = 0;
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            List<Long> batch = ids.subList(i, Math.min(ids.size(), i + batchSize));
+            try {
+                expired += vol ? holdExpiryService.expireVols(batch) : holdExpiryService.expireHotels(batch);
+            } catch (RuntimeException e) {
+                logger.warn("Hold expiry: lot de {} réservation(s) {} en échec, nouvel essai dans {} tick(s)",
+                        batch.size(), vol ? "vol" : "hotel", retryTicks, e);
+                long tick = currentTick + retryTicks;
+                batch.forEach(id -> wheel[(int) (tick & MASK)].add(new Hold(vol, id, tick)));
+            }
+        }
+        return expired;
+    }
+}
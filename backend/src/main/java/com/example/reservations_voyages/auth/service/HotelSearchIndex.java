@@ -0,0 +1,204 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.AvailableHotel;
+import com.example.reservations_voyages.auth.dto.HotelSearchResult;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.common.index.ReloadableIndex;
+import com.example.reservations_voyages.common.tx.AfterCommit;
+import com.example.reservations_voyages.user.entity.Hotel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Index mémoire pour la recherche d'hôtels.
+ *
+ * Chaque ville / pays / nombre d'étoiles a sa liste de postings (BitSet d'indices d'hôtels) ;
+ * chaque équipement est un bit du masque de l'hôtel. Une recherche = AND des postings
+ * puis test du masque et du prix sur les seuls hôtels restants.
+ * Le snapshot est immuable : une modification admin (rare) en construit un nouveau.
+ * La disponibilité sur une période s'appuie sur {@link HotelStayIndex}.
+ */
+@Component
+public class HotelSearchIndex extends ReloadableIndex {
+
+    private static final String HOTELS_SQL = """
+        select id, nom, ville, pays, etoiles, prix_par_nuit, chambres_totales from hotels
+        """;
+    private static final String EQUIPEMENTS_SQL = """
+        select hotel_id, equipement from hotel_equipements
+        """;
+
+    private record Entry(Long id, String nom, String ville, String pays, int etoiles,
+                         BigDecimal prixParNuit, int chambresTotales, List<String> equipements) {}
+
+    private static final class Snapshot {
+        final Entry[] hotels;
+        final long[][] masks;                        // équipements par hôtel
+        final Map<String, Integer> amenityBits;      // équipement normalisé -> n° de bit
+        final Map<String, BitSet> byVille = new HashMap<>();
+        final Map<String, BitSet> byPays = new HashMap<>();
+        final BitSet[] byEtoiles = new BitSet[6];
+        final BitSet all;
+
+        Snapshot(List<Entry> entries) {
+            hotels = entries.toArray(Entry[]::new);
+            masks = new long[hotels.length][];
+            amenityBits = new HashMap<>();
+            all = new BitSet(hotels.length);
+            for (int e = 0; e < byEtoiles.length; e++) byEtoiles[e] = new BitSet();
+
+            for (int i = 0; i < hotels.length; i++) {
+                Entry h = hotels[i];
+                all.set(i);
+                byVille.computeIfAbsent(norm(h.ville()), k -> new BitSet()).set(i);
+                byPays.computeIfAbsent(norm(h.pays()), k -> new BitSet()).set(i);
+                if (h.etoiles() >= 1 && h.etoiles() <= 5) byEtoiles[h.etoiles()].set(i);
+            }
+            for (int i = 0; i < hotels.length; i++) {
+                BitSet bits = new BitSet();
+                for (String eq : hotels[i].equipements()) {
+                    bits.set(amenityBits.computeIfAbsent(norm(eq), k -> amenityBits.size()));
+                }
+                masks[i] = bits.toLongArray();
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HotelStayIndex stayIndex;
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    public HotelSearchIndex(JdbcTemplate jdbcTemplate, HotelStayIndex stayIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stayIndex = stayIndex;
+    }
+
+    // ===================== RECHERCHE =====================
+    // critères nullables ; résultats triés par prix puis id
+    public List<HotelSearchResult> search(String ville, String pays, Integer etoiles,
+                                          BigDecimal minPrix, BigDecimal maxPrix,
+                                          List<String> equipements, int limit) {
+        Snapshot s = snapshot;
+
+        BitSet candidates = (BitSet) s.all.clone();
+        if (ville != null) candidates.and(s.byVille.getOrDefault(norm(ville), new BitSet()));
+        if (pays != null) candidates.and(s.byPays.getOrDefault(norm(pays), new BitSet()));
+        if (etoiles != null) {
+            candidates.and(etoiles >= 1 && etoiles <= 5 ? s.byEtoiles[etoiles] : new BitSet());
+        }
+
+        long[] required = new long[0];
+        if (equipements != null && !equipements.isEmpty()) {
+            BitSet req = new BitSet();
+            for (String eq : equipements) {
+                Integer bit = s.amenityBits.get(norm(eq));
+                if (bit == null) return List.of(); // aucun hôtel ne l'a
+                req.set(bit);
+            }
+            required = req.toLongArray();
+        }
+
+        List<Entry> matches = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (!containsAll(s.masks[i], required)) continue;
+            Entry h = s.hotels[i];
+            if (minPrix != null && h.prixParNuit().compareTo(minPrix) < 0) continue;
+            if (maxPrix != null && h.prixParNuit().compareTo(maxPrix) > 0) continue;
+            matches.add(h);
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparing(Entry::prixParNuit).thenComparing(Entry::id))
+                .limit(limit)
+                .map(h -> new HotelSearchResult(h.id(), h.nom(), h.ville(), h.pays(), h.etoiles(),
+                        h.prixParNuit(), h.equipements()))
+                .toList();
+    }
+
+    // hôtels de la ville ayant "rooms" chambres libres chaque nuit de [checkIn, checkOut)
+    public List<AvailableHotel> available(String ville, LocalDate checkIn, LocalDate checkOut, int rooms, int limit) {
+        if (!checkOut.isAfter(checkIn)) {
+            throw new BadRequestException("checkOut doit être après checkIn");
+        }
+        if (rooms < 1) {
+            throw new BadRequestException("rooms doit être >= 1");
+        }
+        Snapshot s = snapshot;
+        BitSet candidates = s.byVille.getOrDefault(norm(ville), new BitSet());
+
+        List<AvailableHotel> out = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Entry h = s.hotels[i];
+            if (h.chambresTotales() < rooms) continue;
+            int free = h.chambresTotales() - stayIndex.peakBooked(h.id(), checkIn, checkOut);
+            if (free < rooms) continue;
+            out.add(new AvailableHotel(h.id(), h.nom(), h.ville(), h.etoiles(), h.prixParNuit(), free));
+        }
+        out.sort(Comparator.comparing(AvailableHotel::prixParNuit).thenComparing(AvailableHotel::id));
+        return out.size() > limit ? out.subList(0, limit) : out;
+    }
+
+    private static boolean containsAll(long[] mask, long[] required) {
+        for (int w = 0; w < required.length; w++) {
+            long have = w < mask.length ? mask[w] : 0L;
+            if ((have & required[w]) != required[w]) return false;
+        }
+        return true;
+    }
+
+    // ===================== MISES A JOUR (après commit) =====================
+    public void hotelSaved(Hotel hotel) {
+        Entry e = new Entry(hotel.getId(), hotel.getNom(), hotel.getVille(), hotel.getPays(),
+                hotel.getEtoiles(), hotel.getPrixParNuit(), hotel.getChambresTotales(),
+                hotel.getEquipements() == null ? List.of() : List.copyOf(hotel.getEquipements()));
+        AfterCommit.run(() -> replace(e.id(), e));
+    }
+
+    public void hotelDeleted(Long hotelId) {
+        AfterCommit.run(() -> replace(hotelId, null));
+    }
+
+    private synchronized void replace(Long id, Entry e) {
+        List<Entry> entries = new ArrayList<>(snapshot.hotels.length + 1);
+        for (Entry h : snapshot.hotels) {
+            if (!h.id().equals(id)) entries.add(h);
+        }
+        if (e != null) entries.add(e);
+        snapshot = new Snapshot(entries);
+    }
+
+    // ===================== CHARGEMENT =====================
+    @Override
+    protected String describe() {
+        return "Hotel index: " + snapshot.hotels.length + " hôtel(s), " + snapshot.amenityBits.size() + " équipement(s)";
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.search.hotel-index.refresh-ms:300000}",
+            initialDelayString = "${app.search.hotel-index.refresh-ms:300000}")
+    public void rebuild() {
+        Map<Long, List<String>> equipements = new HashMap<>();
+        jdbcTemplate.query(EQUIPEMENTS_SQL, rs -> {
+            equipements.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(rs.getString(2));
+        });
+
+        List<Entry> entries = jdbcTemplate.query(HOTELS_SQL, (rs, i) -> new Entry(
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5),
+                rs.getBigDecimal(6), rs.getInt(7), List.copyOf(equipements.getOrDefault(rs.getLong(1), List.of()))));
+
+        Snapshot built = new Snapshot(entries);
+        synchronized (this) {
+            snapshot = built;
+        }
+    }
+
+    // ===================== OUTILS =====================
+    private static String norm(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
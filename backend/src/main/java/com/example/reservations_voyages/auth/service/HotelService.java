@@ -1,7 +1,10 @@
 package com.example.reservations_voyages.auth.service;
 
 import com.example.reservations_voyages.user.entity.Hotel;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.common.exception.ConflictException;
 import com.example.reservations_voyages.common.exception.ResourceNotFoundException;
+import com.example.reservations_voyages.user.repo.HotelNightRepository;
 import com.example.reservations_voyages.user.repo.HotelRepository;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +19,11 @@ import java.util.List;
 public class HotelService {
 
     private final HotelRepository hotelRepository;
+    private final HotelNightRepository hotelNightRepository;
+    private final HotelSearchIndex hotelSearchIndex;
+    private final HotelStayIndex hotelStayIndex;
+    private final HotelTextIndex hotelTextIndex;
+    private final AutocompleteIndex autocompleteIndex;
 
     public List<Hotel> getAllHotels() {
         return hotelRepository.findAll();
@@ -31,22 +39,32 @@ public class HotelService {
         if (hotel.getChambresDisponibles() <= 0) {
             hotel.setChambresDisponibles(hotel.getChambresTotales());
         }
-        return hotelRepository.save(hotel);
+        Hotel saved = hotelRepository.save(hotel);
+        hotelSearchIndex.hotelSaved(saved);
+        hotelTextIndex.hotelSaved(saved);
+        autocompleteIndex.labelChanged(AutocompleteIndex.VILLE, null, saved.getVille());
+        autocompleteIndex.labelChanged(AutocompleteIndex.PAYS, null, saved.getPays());
+        return saved;
     }
 
-    // ✅ UPDATE: ajuste chambresDisponibles si chambresTotales change
+    // ✅ UPDATE: le stock réel est par nuit (hotel_nights), décalé si chambresTotales change
     public Hotel updateHotel(Long id, @Valid Hotel hotelDetails) {
         Hotel hotel = getHotelById(id);
 
+        // formulaire complet : sans la version lue par l'admin, il écraserait une modification concurrente.
+        // Pas de nouvel essai automatique (il réappliquerait le formulaire).
+        if (hotelDetails.getVersion() == null) {
+            throw new BadRequestException("La version de l'hôtel est requise pour le modifier");
+        }
+        if (!hotelDetails.getVersion().equals(hotel.getVersion())) {
+            throw new ConflictException("L'hôtel a été modifié entre-temps, rechargez-le avant de l'enregistrer");
+        }
+
         int oldTotal = hotel.getChambresTotales();
-        int oldDisponible = hotel.getChambresDisponibles();
         int newTotal = hotelDetails.getChambresTotales();
 
-        // combien de chambres déjà "prises" = total - disponibles
-        int reserved = Math.max(0, oldTotal - oldDisponible);
-
-        // nouveaux disponibles = newTotal - reserved (minimum 0)
-        int newDisponible = Math.max(0, newTotal - reserved);
+        autocompleteIndex.labelChanged(AutocompleteIndex.VILLE, hotel.getVille(), hotelDetails.getVille());
+        autocompleteIndex.labelChanged(AutocompleteIndex.PAYS, hotel.getPays(), hotelDetails.getPays());
 
         hotel.setNom(hotelDetails.getNom());
         hotel.setAdresse(hotelDetails.getAdresse());
@@ -55,15 +73,28 @@ public class HotelService {
         hotel.setEtoiles(hotelDetails.getEtoiles());
         hotel.setPrixParNuit(hotelDetails.getPrixParNuit());
         hotel.setChambresTotales(newTotal);
-        hotel.setChambresDisponibles(newDisponible); // ✅ IMPORTANT
         hotel.setDescription(hotelDetails.getDescription());
         hotel.setEquipements(hotelDetails.getEquipements());
 
-        return hotelRepository.save(hotel);
+        // stock par nuit : mêmes chambres réservées, nouveau total
+        if (newTotal != oldTotal) {
+            hotelNightRepository.shiftFutureNights(id, newTotal - oldTotal);
+        }
+
+        Hotel saved = hotelRepository.save(hotel);
+        hotelSearchIndex.hotelSaved(saved);
+        hotelTextIndex.hotelSaved(saved);
+        return saved;
     }
 
     public void deleteHotel(Long id) {
         Hotel hotel = getHotelById(id);
+        hotelNightRepository.deleteByHotelId(id);
         hotelRepository.delete(hotel);
+        hotelSearchIndex.hotelDeleted(id);
+        hotelStayIndex.hotelDeleted(id);
+        hotelTextIndex.hotelDeleted(id);
+        autocompleteIndex.labelChanged(AutocompleteIndex.VILLE, hotel.getVille(), null);
+        autocompleteIndex.labelChanged(AutocompleteIndex.PAYS, hotel.getPays(), null);
     }
 }
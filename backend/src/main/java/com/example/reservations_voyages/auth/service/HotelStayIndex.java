@@ -0,0 +1,99 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.index.ReloadableIndex;
+import com.example.reservations_voyages.common.tx.AfterCommit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Séjours réservés (non annulés, non terminés) par hôtel, en mémoire, sous forme de balayage :
+ * +rooms au checkIn, -rooms au checkOut. Les chambres occupées une nuit d sont la somme des
+ * variations jusqu'à d ; le pic sur [checkIn, checkOut) se lit en un passage sur la fenêtre.
+ * Alimenté après commit par InventoryService, rechargé périodiquement (purge des séjours passés).
+ */
+@Component
+public class HotelStayIndex extends ReloadableIndex {
+
+    private static final String LOAD_SQL = """
+        select hotel_id, check_in, check_out, rooms from reservation_hotels
+        where status <> 'CANCELED' and check_out > current_date
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // hôtel -> jour (epoch day) -> variation du nombre de chambres occupées
+    private volatile Map<Long, TreeMap<Long, Integer>> stays = new ConcurrentHashMap<>();
+
+    public HotelStayIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // maximum de chambres occupées sur une nuit de [checkIn, checkOut)
+    public int peakBooked(Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+        TreeMap<Long, Integer> sweep = stays.get(hotelId);
+        if (sweep == null) return 0;
+        long in = checkIn.toEpochDay();
+        long out = checkOut.toEpochDay();
+
+        synchronized (sweep) {
+            int running = 0;
+            for (int d : sweep.headMap(in, true).values()) running += d;
+            int peak = running;
+            for (int d : sweep.subMap(in, false, out, false).values()) {
+                running += d;
+                peak = Math.max(peak, running);
+            }
+            return peak;
+        }
+    }
+
+    // ===================== MISES A JOUR (après commit) =====================
+    public void stayBooked(Long hotelId, LocalDate checkIn, LocalDate checkOut, int rooms) {
+        AfterCommit.run(() -> add(stays, hotelId, checkIn.toEpochDay(), checkOut.toEpochDay(), rooms));
+    }
+
+    public void stayReleased(Long hotelId, LocalDate checkIn, LocalDate checkOut, int rooms) {
+        AfterCommit.run(() -> add(stays, hotelId, checkIn.toEpochDay(), checkOut.toEpochDay(), -rooms));
+    }
+
+    public void hotelDeleted(Long hotelId) {
+        AfterCommit.run(() -> stays.remove(hotelId));
+    }
+
+    private static void add(Map<Long, TreeMap<Long, Integer>> target, Long hotelId, long in, long out, int rooms) {
+        TreeMap<Long, Integer> sweep = target.computeIfAbsent(hotelId, k -> new TreeMap<>());
+        synchronized (sweep) {
+            bump(sweep, in, rooms);
+            bump(sweep, out, -rooms);
+        }
+    }
+
+    private static void bump(TreeMap<Long, Integer> sweep, long day, int delta) {
+        if (sweep.merge(day, delta, Integer::sum) == 0) sweep.remove(day);
+    }
+
+    // ===================== CHARGEMENT =====================
+    @Override
+    protected String describe() {
+        return "Hotel stay index: " + stays.size() + " hôtel(s) avec séjours à venir";
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.search.stay-index.refresh-ms:3600000}",
+            initialDelayString = "${app.search.stay-index.refresh-ms:3600000}")
+    public void rebuild() {
+        Map<Long, TreeMap<Long, Integer>> built = new ConcurrentHashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            add(built, rs.getLong(1), rs.getDate(2).toLocalDate().toEpochDay(),
+                    rs.getDate(3).toLocalDate().toEpochDay(), rs.getInt(4));
+        });
+        // une réservation commitée pendant le chargement peut manquer : corrigée au prochain rebuild
+        stays = built;
+    }
+}
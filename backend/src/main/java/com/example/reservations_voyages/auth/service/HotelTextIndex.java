@@ -0,0 +1,187 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.HotelTextMatch;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.common.index.ReloadableIndex;
+import com.example.reservations_voyages.common.tx.AfterCommit;
+import com.example.reservations_voyages.user.entity.Hotel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recherche plein texte tolérante aux fautes sur nom / ville / adresse / description des hôtels.
+ *
+ * Index inversé de trigrammes en mémoire : trigramme -> (hôtel -> poids du meilleur champ).
+ * Une requête additionne les poids des trigrammes communs ; une faute de frappe ne casse
+ * que 2 ou 3 trigrammes, le reste suffit à retrouver l'hôtel.
+ * Mis à jour hôtel par hôtel après commit par HotelService, et reconstruit périodiquement
+ * depuis la table hotels (nouvel index publié d'un bloc) pour corriger toute dérive.
+ */
+@Component
+public class HotelTextIndex extends ReloadableIndex {
+
+    private static final String LOAD_SQL = """
+        select id, nom, ville, pays, adresse, description from hotels
+        """;
+
+    // poids par champ (le nom compte plus que la description)
+    private static final int W_NOM = 4;
+    private static final int W_VILLE = 3;
+    private static final int W_ADRESSE = 2;
+    private static final int W_DESCRIPTION = 1;
+
+    // part minimale des trigrammes de la requête présents dans l'hôtel
+    private static final double MIN_SIMILARITY = 0.34;
+
+    private record Doc(String nom, String ville, String pays, Map<Long, Integer> trigrams) {}
+
+    // hôtels + postings (trigramme -> hôtel -> poids), remplacés ensemble par rebuild()
+    private record Index(Map<Long, Doc> docs, Map<Long, Map<Long, Integer>> postings) {
+        Index() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Index index = new Index();
+
+    public HotelTextIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ===================== RECHERCHE =====================
+    public List<HotelTextMatch> search(String q, int limit) {
+        if (q == null || q.isBlank()) {
+            throw new BadRequestException("q est obligatoire");
+        }
+        Set<Long> query = addTrigrams(q, 1, new HashMap<>()).keySet();
+        if (query.isEmpty()) return List.of();
+        Index idx = index;
+
+        // hôtel -> {somme des poids, nb de trigrammes trouvés}
+        Map<Long, int[]> acc = new HashMap<>();
+        for (Long t : query) {
+            Map<Long, Integer> p = idx.postings().get(t);
+            if (p == null) continue;
+            p.forEach((hotelId, w) -> {
+                int[] a = acc.computeIfAbsent(hotelId, k -> new int[2]);
+                a[0] += w;
+                a[1]++;
+            });
+        }
+
+        int minMatched = (int) Math.ceil(query.size() * MIN_SIMILARITY);
+        double maxScore = (double) query.size() * W_NOM;
+
+        PriorityQueue<Map.Entry<Long, int[]>> top = new PriorityQueue<>(
+                Comparator.comparingInt((Map.Entry<Long, int[]> e) -> e.getValue()[0])
+                        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder()));
+        for (Map.Entry<Long, int[]> e : acc.entrySet()) {
+            if (e.getValue()[1] < minMatched) continue;
+            top.add(e);
+            if (top.size() > limit) top.poll();
+        }
+
+        List<HotelTextMatch> out = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            Map.Entry<Long, int[]> e = top.poll();
+            Doc d = idx.docs().get(e.getKey());
+            if (d == null) continue; // supprimé entre-temps
+            out.add(new HotelTextMatch(e.getKey(), d.nom(), d.ville(), d.pays(), e.getValue()[0] / maxScore));
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    // ===================== MISES A JOUR (après commit) =====================
+    public void hotelSaved(Hotel h) {
+        Long id = h.getId();
+        Doc doc = toDoc(h.getNom(), h.getVille(), h.getPays(), h.getAdresse(), h.getDescription());
+        AfterCommit.run(() -> put(id, doc));
+    }
+
+    public void hotelDeleted(Long hotelId) {
+        AfterCommit.run(() -> remove(hotelId));
+    }
+
+    private synchronized void put(Long id, Doc doc) {
+        put(index, id, doc);
+    }
+
+    private synchronized void remove(Long id) {
+        remove(index, id);
+    }
+
+    private static void put(Index idx, Long id, Doc doc) {
+        remove(idx, id);
+        idx.docs().put(id, doc);
+        doc.trigrams().forEach((t, w) ->
+                idx.postings().computeIfAbsent(t, k -> new ConcurrentHashMap<>()).put(id, w));
+    }
+
+    private static void remove(Index idx, Long id) {
+        Doc old = idx.docs().remove(id);
+        if (old == null) return;
+        for (Long t : old.trigrams().keySet()) {
+            Map<Long, Integer> p = idx.postings().get(t);
+            if (p == null) continue;
+            p.remove(id);
+            if (p.isEmpty()) idx.postings().remove(t);
+        }
+    }
+
+    // ===================== CHARGEMENT =====================
+    @Override
+    protected String describe() {
+        Index idx = index;
+        return "Hotel text index: " + idx.docs().size() + " hôtel(s), " + idx.postings().size() + " trigramme(s)";
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.search.text-index.refresh-ms:600000}",
+            initialDelayString = "${app.search.text-index.refresh-ms:600000}")
+    public void rebuild() {
+        Index built = new Index();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            put(built, rs.getLong(1), toDoc(rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getString(6)));
+        });
+        // une modification commitée pendant la lecture peut être perdue : corrigée au prochain rebuild
+        synchronized (this) {
+            index = built;
+        }
+    }
+
+    // ===================== TRIGRAMMES =====================
+    private static Doc toDoc(String nom, String ville, String pays, String adresse, String description) {
+        Map<Long, Integer> t = new HashMap<>();
+        addTrigrams(description, W_DESCRIPTION, t);
+        addTrigrams(adresse, W_ADRESSE, t);
+        addTrigrams(ville, W_VILLE, t);
+        addTrigrams(nom, W_NOM, t);
+        return new Doc(nom, ville, pays, t);
+    }
+
+    // chaque mot est encadré comme dans pg_trgm ("  mot ") ; un trigramme garde le poids max
+    private static Map<Long, Integer> addTrigrams(String text, int weight, Map<Long, Integer> out) {
+        if (text == null) return out;
+        String norm = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String word : norm.split("[^\\p{Alnum}]+")) {
+            if (word.isEmpty()) continue;
+            String w = "  " + word + " ";
+            for (int i = 0; i + 3 <= w.length(); i++) {
+                long key = ((long) w.charAt(i) << 32) | ((long) w.charAt(i + 1) << 16) | w.charAt(i + 2);
+                out.merge(key, weight, Math::max);
+            }
+        }
+        return out;
+    }
+}
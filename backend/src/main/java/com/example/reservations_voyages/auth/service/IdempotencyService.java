@@ -0,0 +1,154 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.common.exception.ConflictException;
+import com.example.reservations_voyages.user.entity.IdempotencyKey;
+import com.example.reservations_voyages.user.repo.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * En-tête Idempotency-Key sur les POST de réservation / paiement.
+ *
+ * Une clé déjà traitée rejoue la réponse d'origine sans ré-exécuter le service, à condition que
+ * l'endpoint et le corps (empreinte SHA-256 du JSON canonique) soient identiques : sinon 409.
+ * Un doublon arrivé pendant le traitement reçoit un 409 : d'abord via un marqueur en mémoire
+ * (même instance, sans aller en base), sinon via la ligne "en cours" de idempotency_keys.
+ * Les réponses récentes sont gardées dans un cache LRU borné ; la table fait foi.
+ */
+@Service
+public class IdempotencyService {
+
+    private record Cached(String scope, String requestHash, String body, Instant expiresAt) {}
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+
+    private final Duration ttl;
+    private final Duration staleAfter;
+
+    private final Map<String, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Cached> cache;
+
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.stale-after-seconds:60}") long staleAfterSeconds,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // request = corps de la requête (DTO validé), comparé à celui du premier appel
+    public <T> T execute(String key, String userEmail, String scope, Object request, Class<T> type,
+                         Supplier<T> action) {
+        return execute(key, userEmail, scope, request, body -> objectMapper.readValue(body, type), action);
+    }
+
+    public <T> T execute(String key, String userEmail, String scope, Object request, TypeReference<T> type,
+                         Supplier<T> action) {
+        return execute(key, userEmail, scope, request, body -> objectMapper.readValue(body, type), action);
+    }
+
+    private <T> T execute(String key, String userEmail, String scope, Object request,
+                          Function<String, T> reader, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 100) {
+            throw new BadRequestException("Idempotency-Key trop longue (100 caractères max)");
+        }
+
+        String ck = userEmail + "\n" + key;
+        String requestHash = fingerprint(request);
+        Instant now = Instant.now();
+
+        // 1) Réponse récente en mémoire
+        Cached c = cache.get(ck);
+        if (c != null && c.expiresAt().isAfter(now)) {
+            checkSameRequest(c.scope(), c.requestHash(), scope, requestHash);
+            return reader.apply(c.body());
+        }
+
+        // 2) Doublon concurrent sur cette instance
+        if (inFlight.putIfAbsent(ck, Boolean.TRUE) != null) {
+            throw new ConflictException("Une requête avec cette Idempotency-Key est déjà en cours");
+        }
+        try {
+            // 3) Réserver la clé en base (ou rejouer / refuser si elle existe)
+            repository.purgeIfExpired(userEmail, key, now.minus(ttl), now.minus(staleAfter));
+            if (repository.tryInsert(userEmail, key, scope, requestHash, now) == 0) {
+                IdempotencyKey existing = repository.findByUserEmailAndIdemKey(userEmail, key)
+                        .orElseThrow(() -> new ConflictException("Une requête avec cette Idempotency-Key est déjà en cours"));
+                checkSameRequest(existing.getScope(), existing.getRequestHash(), scope, requestHash);
+                if (!existing.isCompleted()) {
+                    throw new ConflictException("Une requête avec cette Idempotency-Key est déjà en cours");
+                }
+                cache.put(ck, new Cached(existing.getScope(), existing.getRequestHash(), existing.getResponseBody(),
+                        existing.getCreatedAt().plus(ttl)));
+                return reader.apply(existing.getResponseBody());
+            }
+
+            // 4) Exécuter ; en cas d'échec la clé est libérée (le client peut réessayer)
+            T result;
+            try {
+                result = action.get();
+            } catch (RuntimeException e) {
+                repository.release(userEmail, key);
+                throw e;
+            }
+
+            String body = objectMapper.writeValueAsString(result);
+            repository.complete(userEmail, key, body);
+            cache.put(ck, new Cached(scope, requestHash, body, now.plus(ttl)));
+            return result;
+        } finally {
+            inFlight.remove(ck);
+        }
+    }
+
+    // storedHash null : clé enregistrée avant l'empreinte des corps, seul l'endpoint est comparé
+    private static void checkSameRequest(String storedScope, String storedHash, String scope, String requestHash) {
+        if (!storedScope.equals(scope) || (storedHash != null && !storedHash.equals(requestHash))) {
+            throw new ConflictException("Idempotency-Key déjà utilisée pour une autre requête");
+        }
+    }
+
+    // JSON du DTO (ordre des champs du record, donc stable) -> SHA-256 hexadécimal
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        repository.deleteAllCreatedBefore(Instant.now().minus(ttl));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.common.tx.AfterCommit;
+import com.example.reservations_voyages.user.entity.Hotel;
+import com.example.reservations_voyages.user.entity.ReservationHotel;
+import com.example.reservations_voyages.user.entity.ReservationVol;
+import com.example.reservations_voyages.user.repo.HotelNightRepository;
+import com.example.reservations_voyages.user.repo.ReservationVolRepository;
+import com.example.reservations_voyages.user.repo.VolRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Stock de places (vols) et de chambres par nuit (hôtels).
+ * Chaque opération est un UPDATE conditionnel unique : pas de lecture/écriture en Java,
+ * donc pas de survente et un verrou de ligne tenu le moins longtemps possible.
+ * En mode mémoire, les places des vols passent par {@link SeatInventoryEngine}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class InventoryService {
+
+    private static final String NO_SEATS_ALLER = "Pas assez de places disponibles pour le vol aller";
+    private static final String NO_SEATS_RETOUR = "Pas assez de places disponibles pour le vol retour";
+
+    private final VolRepository volRepository;
+    private final ReservationVolRepository reservationVolRepository;
+    private final HotelNightRepository hotelNightRepository;
+    private final SeatInventoryEngine seatEngine;
+    private final VolRouteIndex routeIndex;
+    private final HotelStayIndex stayIndex;
+
+    // ===================== VOLS =====================
+    // r doit avoir vol, volRetour et nbPlaces renseignés (avant save)
+    public void reserveVol(ReservationVol r) {
+        Long volId = r.getVol().getId();
+        Long retourId = r.getVolRetour() != null ? r.getVolRetour().getId() : null;
+        int n = r.getNbPlaces();
+
+        if (seatEngine.isEnabled()) {
+            int res = seatEngine.reserve(volId, retourId, n);
+            if (res == SeatInventoryEngine.NO_SEATS_ALLER) throw new BadRequestException(NO_SEATS_ALLER);
+            if (res == SeatInventoryEngine.NO_SEATS_RETOUR) throw new BadRequestException(NO_SEATS_RETOUR);
+
+            r.setSeatsSynced(false);
+            // transaction annulée -> on rend les places mémoire
+            AfterCommit.onCompletion(false, () -> seatEngine.release(volId, retourId, n));
+            seatsChanged(volId, retourId, -n);
+            return;
+        }
+
+        // même chemin que les voyages (UPDATE par id croissant) : un aller-retour X->Y et un Y->X
+        // concurrents ne s'interbloquent pas ; si un vol échoue, le rollback annule l'autre
+        reservePlaces(demand(List.of(r)), id -> id.equals(volId) ? NO_SEATS_ALLER : NO_SEATS_RETOUR);
+    }
+
+    // plusieurs réservations d'un même voyage : une demande cumulée par vol, UPDATE par id croissant
+    // (deux voyages concurrents verrouillent leurs vols dans le même ordre -> pas d'interblocage)
+    public void reserveVols(List<ReservationVol> rs) {
+        if (seatEngine.isEnabled()) {
+            rs.forEach(this::reserveVol);
+            return;
+        }
+
+        reservePlaces(demand(rs), id -> "Pas assez de places disponibles pour le vol #" + id);
+    }
+
+    // places demandées par vol (aller et retour), triées par id
+    private static SortedMap<Long, Integer> demand(List<ReservationVol> rs) {
+        SortedMap<Long, Integer> demand = new TreeMap<>();
+        for (ReservationVol r : rs) {
+            demand.merge(r.getVol().getId(), r.getNbPlaces(), Integer::sum);
+            if (r.getVolRetour() != null) {
+                demand.merge(r.getVolRetour().getId(), r.getNbPlaces(), Integer::sum);
+            }
+        }
+        return demand;
+    }
+
+    private void reservePlaces(SortedMap<Long, Integer> demand, Function<Long, String> noSeats) {
+        demand.forEach((volId, n) -> {
+            if (volRepository.reservePlaces(volId, n) == 0) {
+                throw new BadRequestException(noSeats.apply(volId));
+            }
+            routeIndex.adjustSeats(volId, -n);
+        });
+    }
+
+    // rend les places aller (+ retour si aller-retour)
+    public void releaseVol(ReservationVol r) {
+        Long volId = r.getVol().getId();
+        Long retourId = r.getVolRetour() != null ? r.getVolRetour().getId() : null;
+        int n = r.getNbPlaces();
+
+        // pas encore appliquée en base par le flush : rien à rendre côté vols
+        boolean appliedInDb = r.isSeatsSynced() || reservationVolRepository.claimUnsyncedSeats(r.getId()) == 0;
+
+        if (appliedInDb) {
+            // même ordre de verrouillage que la réservation
+            demand(List.of(r)).forEach(volRepository::releasePlaces);
+        }
+
+        if (seatEngine.isEnabled()) {
+            AfterCommit.onCompletion(true, () -> seatEngine.release(volId, retourId, n));
+        }
+        seatsChanged(volId, retourId, n);
+    }
+
+    // places déjà décomptées en base par l'appelant (lot du séquenceur)
+    public void volSeatsTaken(Long volId, int n) {
+        routeIndex.adjustSeats(volId, -n);
+    }
+
+    // modification admin de placesDisponibles (valeur en base déjà écrite par VolService)
+    public void volSeatsEdited(Long volId, int delta) {
+        if (seatEngine.isEnabled() && delta != 0) {
+            AfterCommit.onCompletion(true, () -> seatEngine.adjust(volId, delta));
+        }
+    }
+
+    public void volDeleted(Long volId) {
+        AfterCommit.onCompletion(true, () -> seatEngine.evict(volId));
+    }
+
+    // ===================== HOTELS (par nuit, [checkIn, checkOut)) =====================
+    public void reserveHotel(Hotel hotel, LocalDate checkIn, LocalDate checkOut, int rooms) {
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+
+        hotelNightRepository.seedNights(hotel.getId(), checkIn, checkOut, hotel.getChambresTotales());
+
+        // une seule nuit complète suffit à refuser : le rollback annule les autres décréments
+        if (hotelNightRepository.reserveNights(hotel.getId(), checkIn, checkOut, rooms) < nights) {
+            throw new BadRequestException("Pas assez de chambres disponibles sur la période demandée");
+        }
+        stayIndex.stayBooked(hotel.getId(), checkIn, checkOut, rooms);
+    }
+
+    public void releaseHotel(ReservationHotel r) {
+        hotelNightRepository.releaseNights(r.getHotel().getId(), r.getCheckIn(), r.getCheckOut(), r.getRooms());
+        stayIndex.stayReleased(r.getHotel().getId(), r.getCheckIn(), r.getCheckOut(), r.getRooms());
+    }
+
+    // minimum de chambres libres sur toutes les nuits du séjour
+    @Transactional(readOnly = true)
+    public int minRoomsAvailable(Hotel hotel, LocalDate checkIn, LocalDate checkOut) {
+        if (!checkOut.isAfter(checkIn)) {
+            throw new BadRequestException("checkOut doit être après checkIn");
+        }
+        int min = hotelNightRepository.minAvailable(hotel.getId(), checkIn, checkOut, hotel.getChambresTotales());
+        return Math.max(0, min);
+    }
+
+    // index des trajets (recherche client), appliqué au commit
+    private void seatsChanged(Long volId, Long retourId, int delta) {
+        routeIndex.adjustSeats(volId, delta);
+        if (retourId != null) routeIndex.adjustSeats(retourId, delta);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.Itinerary;
+import com.example.reservations_voyages.auth.dto.ItineraryLeg;
+import com.example.reservations_voyages.auth.dto.ItinerarySearchResponse;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Itinéraires avec correspondances (A→C via B), calculés sur le graphe de {@link VolRouteIndex} :
+ * aéroports = nœuds, vols = arêtes datées. Depuis chaque arrivée, seuls les vols partant dans
+ * [arrivée + correspondance min, arrivée + correspondance max] sont explorés (recherche
+ * dichotomique par trajet), ce qui borne l'exploration même avec deux escales.
+ * Aucun accès base ; les places sont celles de l'index (vérifiées de nouveau à la réservation).
+ */
+@Service
+@RequiredArgsConstructor
+public class ItinerarySearchService {
+
+    private static final int MAX_STOPS = 2;
+    private static final int MAX_LIMIT = 20;
+
+    private final VolRouteIndex routeIndex;
+
+    @Value("${app.search.itinerary.min-connection-minutes:45}")
+    private int defaultMinConnection;
+
+    @Value("${app.search.itinerary.max-connection-minutes:360}")
+    private int defaultMaxConnection;
+
+    // un itinéraire trouvé (tableaux parallèles, un élément par vol)
+    private record Candidate(long[] volIds, String[] airports, long[] departs, long[] arrivees,
+                             long[] prixCents, long duration, long totalCents) {}
+
+    private static final Comparator<Candidate> FASTEST =
+            Comparator.comparingLong(Candidate::duration).thenComparingLong(Candidate::totalCents);
+    private static final Comparator<Candidate> CHEAPEST =
+            Comparator.comparingLong(Candidate::totalCents).thenComparingLong(Candidate::duration);
+
+    public ItinerarySearchResponse search(String from, String to, LocalDate date, int nbPlaces,
+                                          Integer maxStops, Integer minConnectionMinutes,
+                                          Integer maxConnectionMinutes, Integer limit) {
+        if (from.equals(to)) {
+            throw new BadRequestException("Les aéroports de départ et d'arrivée doivent être différents");
+        }
+        if (nbPlaces < 1) {
+            throw new BadRequestException("nbPlaces doit être >= 1");
+        }
+        int stops = maxStops == null ? 1 : maxStops;
+        if (stops < 0 || stops > MAX_STOPS) {
+            throw new BadRequestException("maxStops doit être entre 0 et " + MAX_STOPS);
+        }
+        int minConn = minConnectionMinutes == null ? defaultMinConnection : minConnectionMinutes;
+        int maxConn = maxConnectionMinutes == null ? defaultMaxConnection : maxConnectionMinutes;
+        if (minConn < 0 || maxConn < minConn) {
+            throw new BadRequestException("Temps de correspondance invalides");
+        }
+        int n = limit == null ? 5 : Math.max(1, Math.min(MAX_LIMIT, limit));
+
+        Search s = new Search(to, nbPlaces, stops, minConn * 60L, maxConn * 60L, n);
+        s.path[0] = from;
+        routeIndex.forEachDeparture(from,
+                VolRouteIndex.encode(date.atStartOfDay()),
+                VolRouteIndex.encode(date.plusDays(1).atStartOfDay()),
+                nbPlaces, (volId, arrivee, dep, arr, prix) -> s.leg(0, volId, arrivee, dep, arr, prix));
+
+        return new ItinerarySearchResponse(
+                s.fastest.stream().sorted(FASTEST).map(c -> toItinerary(c, nbPlaces)).toList(),
+                s.cheapest.stream().sorted(CHEAPEST).map(c -> toItinerary(c, nbPlaces)).toList());
+    }
+
+    // parcours en profondeur ; chemin courant dans des tableaux de taille fixe (MAX_STOPS + 1 vols)
+    private final class Search {
+        final String destination;
+        final int nbPlaces;
+        final int maxStops;
+        final long minConn;
+        final long maxConn;
+        final int limit;
+
+        final String[] path = new String[MAX_STOPS + 2];
+        final long[] volIds = new long[MAX_STOPS + 1];
+        final long[] departs = new long[MAX_STOPS + 1];
+        final long[] arrivees = new long[MAX_STOPS + 1];
+        final long[] prix = new long[MAX_STOPS + 1];
+
+        // tas bornés : la tête est le pire candidat retenu
+        final PriorityQueue<Candidate> fastest = new PriorityQueue<>(FASTEST.reversed());
+        final PriorityQueue<Candidate> cheapest = new PriorityQueue<>(CHEAPEST.reversed());
+
+        Search(String destination, int nbPlaces, int maxStops, long minConn, long maxConn, int limit) {
+            this.destination = destination;
+            this.nbPlaces = nbPlaces;
+            this.maxStops = maxStops;
+            this.minConn = minConn;
+            this.maxConn = maxConn;
+            this.limit = limit;
+        }
+
+        void leg(int depth, long volId, String arrivee, long dep, long arr, long prixCents) {
+            for (int i = 0; i <= depth; i++) {
+                if (path[i].equals(arrivee)) return; // pas de boucle
+            }
+            volIds[depth] = volId;
+            departs[depth] = dep;
+            arrivees[depth] = arr;
+            prix[depth] = prixCents;
+            path[depth + 1] = arrivee;
+
+            if (arrivee.equals(destination)) {
+                offer(depth + 1);
+                return;
+            }
+            if (depth >= maxStops) return;
+
+            routeIndex.forEachDeparture(arrivee, arr + minConn, arr + maxConn + 1, nbPlaces,
+                    (nextId, nextArrivee, nextDep, nextArr, nextPrix) ->
+                            leg(depth + 1, nextId, nextArrivee, nextDep, nextArr, nextPrix));
+        }
+
+        void offer(int legs) {
+            long total = 0;
+            for (int i = 0; i < legs; i++) total += prix[i];
+            long duration = arrivees[legs - 1] - departs[0];
+
+            Candidate c = new Candidate(
+                    Arrays.copyOf(volIds, legs), Arrays.copyOf(path, legs + 1),
+                    Arrays.copyOf(departs, legs), Arrays.copyOf(arrivees, legs),
+                    Arrays.copyOf(prix, legs), duration, total);
+            keep(fastest, c, FASTEST);
+            keep(cheapest, c, CHEAPEST);
+        }
+
+        void keep(PriorityQueue<Candidate> heap, Candidate c, Comparator<Candidate> order) {
+            if (heap.size() < limit) {
+                heap.add(c);
+            } else if (order.compare(c, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(c);
+            }
+        }
+    }
+
+    private static Itinerary toItinerary(Candidate c, int nbPlaces) {
+        List<ItineraryLeg> legs = new ArrayList<>(c.volIds().length);
+        for (int i = 0; i < c.volIds().length; i++) {
+            legs.add(new ItineraryLeg(
+                    c.volIds()[i], c.airports()[i], c.airports()[i + 1],
+                    VolRouteIndex.decode(c.departs()[i]), VolRouteIndex.decode(c.arrivees()[i]),
+                    BigDecimal.valueOf(c.prixCents()[i], 2)));
+        }
+        BigDecimal total = BigDecimal.valueOf(c.totalCents(), 2).multiply(BigDecimal.valueOf(nbPlaces));
+        return new Itinerary(legs, legs.size() - 1, c.duration() / 60, total);
+    }
+}
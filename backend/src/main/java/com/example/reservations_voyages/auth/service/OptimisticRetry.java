@@ -0,0 +1,85 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.exception.ConflictException;
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Rejoue une méthode de service @Transactional quand son commit échoue sur un conflit de version.
+ * À appeler HORS transaction (depuis le contrôleur) : chaque tentative relit l'état à jour.
+ * Backoff exponentiel avec jitter complet, nombre de tentatives borné, compteurs par opération.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Map<String, LongAdder> conflicts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> exhausted = new ConcurrentHashMap<>();
+
+    public OptimisticRetry(@Value("${app.retry.max-attempts:4}") int maxAttempts,
+                           @Value("${app.retry.base-backoff-ms:20}") long baseBackoffMs,
+                           @Value("${app.retry.max-backoff-ms:500}") long maxBackoffMs) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public <T> T run(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException ex) {
+                conflicts.computeIfAbsent(operation, k -> new LongAdder()).increment();
+
+                if (attempt >= maxAttempts) {
+                    exhausted.computeIfAbsent(operation, k -> new LongAdder()).increment();
+                    logger.warn("{}: conflit de version persistant après {} tentatives", operation, attempt);
+                    throw new ConflictException("Ressource modifiée en parallèle, veuillez réessayer");
+                }
+                sleep(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        run(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // ===================== METRIQUES =====================
+    // ex: {"reserveVol.conflicts": 12, "reserveVol.exhausted": 0, ...}
+    public Map<String, Long> metrics() {
+        Map<String, Long> m = new TreeMap<>();
+        conflicts.forEach((op, n) -> m.put(op + ".conflicts", n.sum()));
+        exhausted.forEach((op, n) -> m.put(op + ".exhausted", n.sum()));
+        return m;
+    }
+
+    private void sleep(int attempt) {
+        long cap = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Ressource modifiée en parallèle, veuillez réessayer");
+        }
+    }
+}
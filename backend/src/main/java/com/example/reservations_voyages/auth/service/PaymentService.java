@@ -18,6 +18,8 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final ReservationVolRepository reservationVolRepository;
     private final ReservationHotelRepository reservationHotelRepository;
+    private final HoldExpiryService holdExpiryService;
+    private final ReservationStatsRollup statsRollup;
 
     public Payment payForVol(String email, Long reservationId, PayRequest req) {
         User client = userRepository.findByEmail(email)
@@ -34,6 +36,10 @@ public class PaymentService {
         if (r.getStatus() != ReservationStatus.PENDING_PAYMENT)
             throw new BadRequestException("Paiement possible uniquement pour une réservation en attente (PENDING_PAYMENT)");
 
+        // ❌ Interdit si le délai de paiement est dépassé (la réservation va être annulée)
+        if (holdExpiryService.isExpired(r.getCreatedAt()))
+            throw new BadRequestException("Délai de paiement dépassé, réservation expirée");
+
         // ❌ Interdit si déjà payé
         if (r.getPayment() != null && r.getPayment().getStatus() == PaymentStatus.PAID)
             throw new BadRequestException("Déjà payé");
@@ -49,12 +55,14 @@ public class PaymentService {
         p = paymentRepository.save(p);
 
         // ✅ si payé → confirmer la réservation
+        ReservationStatus before = r.getStatus();
         if (p.getStatus() == PaymentStatus.PAID) {
             r.setStatus(ReservationStatus.CONFIRMED);
         }
 
         r.setPayment(p);
         reservationVolRepository.save(r);
+        statsRollup.statusChanged(r, before);
 
         return p;
     }
@@ -74,6 +82,10 @@ public class PaymentService {
         if (r.getStatus() != ReservationStatus.PENDING_PAYMENT)
             throw new BadRequestException("Paiement possible uniquement pour une réservation en attente (PENDING_PAYMENT)");
 
+        // ❌ Interdit si le délai de paiement est dépassé (la réservation va être annulée)
+        if (holdExpiryService.isExpired(r.getCreatedAt()))
+            throw new BadRequestException("Délai de paiement dépassé, réservation expirée");
+
         // ❌ Interdit si déjà payé
         if (r.getPayment() != null && r.getPayment().getStatus() == PaymentStatus.PAID)
             throw new BadRequestException("Déjà payé");
@@ -89,12 +101,14 @@ public class PaymentService {
         p = paymentRepository.save(p);
 
         // ✅ si payé → confirmer la réservation
+        ReservationStatus before = r.getStatus();
         if (p.getStatus() == PaymentStatus.PAID) {
             r.setStatus(ReservationStatus.CONFIRMED);
         }
 
         r.setPayment(p);
         reservationHotelRepository.save(r);
+        statsRollup.statusChanged(r, before);
 
         return p;
     }
@@ -0,0 +1,142 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export admin des réservations (VOL + HOTEL) en CSV ou NDJSON, gzip optionnel.
+ *
+ * Les lignes sont lues par un curseur serveur (transaction en lecture seule + fetch size) et
+ * écrites au fil de l'eau dans la réponse : la mémoire reste bornée quel que soit le volume.
+ */
+@Service
+public class ReservationExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final String[] COLUMNS =
+            {"ref", "type", "id", "createdAt", "amount", "status", "clientName", "clientEmail"};
+
+    private final JdbcTemplate streamingJdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+
+    public ReservationExportService(DataSource dataSource,
+                                    TransactionTemplate transactionTemplate,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.export.fetch-size:1000}") int fetchSize,
+                                    @Value("${app.export.timeout-ms:600000}") long timeoutMs) {
+        // JdbcTemplate dédié : le fetch size ne doit pas s'appliquer aux autres requêtes
+        this.streamingJdbc = new JdbcTemplate(dataSource);
+        this.streamingJdbc.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+    }
+
+    // délai max de la réponse en streaming (les autres requêtes asynchrones gardent celui par défaut)
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+
+    // écrit l'export dans out (PostgreSQL n'utilise un curseur serveur qu'hors autocommit)
+    public void export(OutputStream out, String format, boolean gzip, String type,
+                       ReservationStatus status, LocalDate from, LocalDate to) {
+        checkParams(format, type);
+
+        ReservationFeedQuery query = new ReservationFeedQuery(type, status, null, from, to);
+        List<Object> params = new ArrayList<>();
+        List<String> branches = new ArrayList<>();
+        for (String t : query.types()) branches.add(query.branch(t, params));
+        String sql = String.join(" union all ", branches) + " order by created_at, id, type";
+
+        try {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            Writer w = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+
+            if (CSV.equals(format)) {
+                w.write(String.join(",", COLUMNS));
+                w.write('\n');
+            }
+            RowCallbackHandler writer = rs -> writeRow(w, format, rs);
+            readOnlyTx.executeWithoutResult(tx -> streamingJdbc.query(sql, writer, params.toArray()));
+
+            w.flush();
+            if (target instanceof GZIPOutputStream gz) gz.finish();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void checkParams(String format, String type) {
+        if (!CSV.equals(format) && !NDJSON.equals(format)) {
+            throw new BadRequestException("format doit être csv ou ndjson");
+        }
+        ReservationFeedQuery.checkType(type);
+    }
+
+    private void writeRow(Writer w, String format, ResultSet rs) throws SQLException {
+        String[] v = {
+                rs.getString(1) + "-" + rs.getLong(2),
+                rs.getString(1),
+                String.valueOf(rs.getLong(2)),
+                rs.getTimestamp(3).toLocalDateTime().toString(),
+                rs.getBigDecimal(4) == null ? "" : rs.getBigDecimal(4).toPlainString(),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getString(7)
+        };
+        try {
+            if (CSV.equals(format)) {
+                for (int i = 0; i < v.length; i++) {
+                    if (i > 0) w.write(',');
+                    w.write(csv(v[i]));
+                }
+            } else {
+                Map<String, String> row = new LinkedHashMap<>();
+                for (int i = 0; i < v.length; i++) row.put(COLUMNS[i], v[i]);
+                w.write(objectMapper.writeValueAsString(row));
+            }
+            w.write('\n');
+        } catch (IOException e) {
+            // client déconnecté : on interrompt la lecture du curseur
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // valeur commençant par = + - @ (ou tabulation / retour chariot) : interprétée comme une formule
+    // par les tableurs, préfixée par ' pour rester du texte
+    static String csv(String s) {
+        if (s == null) return "";
+        if (!s.isEmpty() && "=+-@\t\r".indexOf(s.charAt(0)) >= 0) s = "'" + s;
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
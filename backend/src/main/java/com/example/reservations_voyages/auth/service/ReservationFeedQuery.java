@@ -0,0 +1,61 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filtres communs à la liste admin des réservations (AdminReservationService.feed) et à l'export
+ * (ReservationExportService) : une branche SQL par table (VOL, HOTEL), mêmes colonnes,
+ * réunies par UNION ALL par l'appelant.
+ */
+record ReservationFeedQuery(String type, ReservationStatus status, String clientEmail,
+                            LocalDate from, LocalDate to) {
+
+    // Colonnes : type, id, created_at, total_price, status, full_name, email
+    private static final String BRANCH = """
+        select '%1$s' as type, r.id, r.created_at, r.total_price, r.status, u.full_name, u.email
+        from %2$s r
+        join users u on u.id = r.client_id
+        where true %3$s
+        """;
+
+    ReservationFeedQuery {
+        checkType(type);
+    }
+
+    static void checkType(String type) {
+        if (type != null && !type.equals("VOL") && !type.equals("HOTEL")) {
+            throw new BadRequestException("type doit être VOL ou HOTEL");
+        }
+    }
+
+    List<String> types() {
+        return type == null ? List.of("VOL", "HOTEL") : List.of(type);
+    }
+
+    // select d'une table, filtres en fin de where : l'appelant peut encore ajouter " and ..." puis
+    // order by / limit ; les valeurs des filtres sont ajoutées à params dans l'ordre
+    String branch(String t, List<Object> params) {
+        StringBuilder where = new StringBuilder();
+        if (status != null) {
+            where.append(" and r.status = ?");
+            params.add(status.name());
+        }
+        if (clientEmail != null && !clientEmail.isBlank()) {
+            where.append(" and u.email = ?");
+            params.add(clientEmail.trim());
+        }
+        if (from != null) {
+            where.append(" and r.created_at >= ?");
+            params.add(from.atStartOfDay());
+        }
+        if (to != null) {
+            where.append(" and r.created_at < ?");
+            params.add(to.plusDays(1).atStartOfDay());
+        }
+        return BRANCH.formatted(t, t.equals("VOL") ? "reservation_vols" : "reservation_hotels", where).stripTrailing();
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.user.entity.ReservationHotel;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+import com.example.reservations_voyages.user.entity.ReservationVol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintient reservation_daily_stats (jour de création x type x statut : nombre, montant, places / chambres,
+ * au global, par vol / hôtel et par client) dans la transaction qui modifie la réservation.
+ *
+ * Les variations sont cumulées pendant la transaction puis écrites juste avant le commit,
+ * en un seul lot trié par clé : les lignes chaudes (dim = ALL) restent verrouillées le moins
+ * longtemps possible et toujours dans le même ordre. Un rollback n'écrit rien.
+ * Après commit, les réservations ajoutées alimentent les tops en mémoire (ReservationTopKIndex).
+ * Reconstruction complète au démarrage si la table est vide ou sans units, ou à la demande (admin).
+ * Filet de sécurité périodique limité aux jours récents et aux jours touchés depuis le dernier passage :
+ * le verrou exclusif ne porte que sur quelques jours d'historique.
+ */
+@Component
+public class ReservationStatsRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationStatsRollup.class);
+
+    public static final String ALL = "ALL";
+    public static final String CLIENT = "CLIENT";
+
+    private static final String UPSERT_SQL = """
+        insert into reservation_daily_stats (day, type, status, dim, dim_id, cnt, revenue, units)
+        values (?, ?, ?, ?, ?, ?, ?, ?)
+        on conflict (day, type, status, dim, dim_id)
+        do update set cnt = reservation_daily_stats.cnt + excluded.cnt,
+                      revenue = reservation_daily_stats.revenue + excluded.revenue,
+                      units = reservation_daily_stats.units + excluded.units
+        """;
+
+    private static final String REBUILD_SQL = """
+        insert into reservation_daily_stats (day, type, status, dim, dim_id, cnt, revenue, units)
+        select day, type, status,
+               case when grouping(item_id) = 0 then type when grouping(client_id) = 0 then 'CLIENT' else 'ALL' end,
+               coalesce(item_id, client_id, 0),
+               count(*), coalesce(sum(total_price), 0), coalesce(sum(units), 0)
+        from (
+            select cast(created_at as date) as day, 'VOL' as type, status, vol_id as item_id, client_id, total_price,
+                   nb_places as units
+            from reservation_vols %1$s
+            union all
+            select cast(created_at as date), 'HOTEL', status, hotel_id, client_id, total_price, rooms
+            from reservation_hotels %1$s
+        ) r
+        group by grouping sets ((day, type, status), (day, type, status, item_id), (day, type, status, client_id))
+        """;
+
+    private record Key(LocalDate day, String type, String status, String dim, long dimId) {}
+
+    private static final Comparator<Key> ORDER = Comparator
+            .comparing(Key::day)
+            .thenComparing(Key::type)
+            .thenComparing(Key::status)
+            .thenComparing(Key::dim)
+            .thenComparingLong(Key::dimId);
+
+    private static final class Delta {
+        long cnt;
+        BigDecimal revenue = BigDecimal.ZERO;
+        long units;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationTopKIndex topK;
+    private final AdminReservationStatsService statsService;
+    private final int recentDays;
+
+    // jours de création modifiés par cette instance depuis le dernier passage du filet de sécurité
+    private final Set<LocalDate> touched = ConcurrentHashMap.newKeySet();
+
+    public ReservationStatsRollup(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                  ReservationTopKIndex topK, AdminReservationStatsService statsService,
+                                  @Value("${app.stats.rollup.recent-days:2}") int recentDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.topK = topK;
+        this.statsService = statsService;
+        this.recentDays = recentDays;
+    }
+
+    // ===================== EVENEMENTS RESERVATION =====================
+    public void created(ReservationVol r) {
+        add(r, r.getStatus(), 1);
+    }
+
+    public void created(ReservationHotel r) {
+        add(r, r.getStatus(), 1);
+    }
+
+    // à appeler après setStatus
+    public void statusChanged(ReservationVol r, ReservationStatus from) {
+        if (from == r.getStatus()) return;
+        add(r, from, -1);
+        created(r);
+    }
+
+    public void statusChanged(ReservationHotel r, ReservationStatus from) {
+        if (from == r.getStatus()) return;
+        add(r, from, -1);
+        created(r);
+    }
+
+    public void deleted(ReservationVol r) {
+        add(r, r.getStatus(), -1);
+    }
+
+    public void deleted(ReservationHotel r) {
+        add(r, r.getStatus(), -1);
+    }
+
+    // vol : vol aller, places ; hôtel : chambres
+    private void add(ReservationVol r, ReservationStatus status, int sign) {
+        add("VOL", r.getCreatedAt(), r.getVol().getId(), r.getClient().getId(), status,
+                r.getTotalPrice(), r.getNbPlaces(), sign);
+    }
+
+    private void add(ReservationHotel r, ReservationStatus status, int sign) {
+        add("HOTEL", r.getCreatedAt(), r.getHotel().getId(), r.getClient().getId(), status,
+                r.getTotalPrice(), r.getRooms(), sign);
+    }
+
+    // une réservation alimente trois lignes : global, vol / hôtel, client
+    private void add(String type, LocalDateTime createdAt, Long itemId, Long clientId,
+                     ReservationStatus status, BigDecimal amount, int units, int sign) {
+        Map<Key, Delta> pending = pending();
+        LocalDate day = createdAt.toLocalDate();
+        BigDecimal signed = sign > 0 ? amount : amount.negate();
+        for (Key k : List.of(
+                new Key(day, type, status.name(), ALL, 0L),
+                new Key(day, type, status.name(), type, itemId),
+                new Key(day, type, status.name(), CLIENT, clientId))) {
+            Delta d = pending.computeIfAbsent(k, x -> new Delta());
+            d.cnt += sign;
+            d.revenue = d.revenue.add(signed);
+            d.units += (long) sign * units;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(pending);
+            publish(pending);
+        }
+    }
+
+    // variations de la transaction courante, écrites dans beforeCommit
+    @SuppressWarnings("unchecked")
+    private Map<Key, Delta> pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return new TreeMap<>(ORDER);
+
+        Map<Key, Delta> pending = (Map<Key, Delta>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) return pending;
+
+        Map<Key, Delta> created = new TreeMap<>(ORDER);
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // transaction imbriquée (REQUIRES_NEW) : elle ne doit pas voir les variations de celle-ci
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReservationStatsRollup.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(ReservationStatsRollup.this, created);
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReservationStatsRollup.this);
+                if (status == STATUS_COMMITTED) publish(created);
+            }
+        });
+        return created;
+    }
+
+    private void write(Map<Key, Delta> pending) {
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        pending.forEach((k, d) -> {
+            if (d.cnt == 0 && d.revenue.signum() == 0 && d.units == 0) return;
+            rows.add(new Object[]{Date.valueOf(k.day()), k.type(), k.status(), k.dim(), k.dimId(),
+                    d.cnt, d.revenue, d.units});
+        });
+        if (!rows.isEmpty()) jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    // tops : solde net par (jour, dim, id) tous statuts confondus (+1 création, 0 changement de statut) ;
+    // cache du dashboard : jours touchés
+    private void publish(Map<Key, Delta> pending) {
+        Map<Key, Long> net = new HashMap<>();
+        Set<LocalDate> days = new HashSet<>();
+        pending.forEach((k, d) -> {
+            days.add(k.day());
+            if (ALL.equals(k.dim())) return;
+            net.merge(new Key(k.day(), k.type(), "", k.dim(), k.dimId()), d.cnt, Long::sum);
+        });
+        net.forEach((k, n) -> topK.add(k.dim(), k.day(), k.dimId(), n));
+        touched.addAll(days);
+        if (!days.isEmpty()) statsService.invalidate(days);
+    }
+
+    // ===================== RECONSTRUCTION =====================
+    // table vide, ou lignes antérieures à la colonne units (ajoutée à 0) : une annulation y rendrait
+    // units négatif
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        Boolean stale = jdbcTemplate.queryForObject("""
+                select not exists (select 1 from reservation_daily_stats)
+                    or exists (select 1 from reservation_daily_stats where units = 0 and cnt > 0)
+                """, Boolean.class);
+        if (Boolean.TRUE.equals(stale)) {
+            rebuildAll();
+            logger.info("Reservation daily stats: table reconstruite");
+        }
+    }
+
+    // le verrou exclusif attend les transactions qui écrivent déjà dans la table (elles ont commité
+    // leurs réservations quand il est accordé) et bloque les suivantes jusqu'à la fin : rien n'est
+    // compté deux fois ni perdu. Les lectures du dashboard ne sont pas bloquées.
+    // Tout l'historique : démarrage et endpoint admin uniquement
+    public void rebuildAll() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.execute("lock table reservation_daily_stats in exclusive mode");
+            jdbcTemplate.update("delete from reservation_daily_stats");
+            jdbcTemplate.update(REBUILD_SQL.formatted(""));
+        });
+        // tops en mémoire rechargés depuis la table reconstruite
+        topK.rebuild();
+        statsService.invalidateAll();
+    }
+
+    // filet de sécurité : les recentDays derniers jours (écritures des autres instances) et les jours
+    // touchés ici depuis le dernier passage, jour par jour (index sur createdAt)
+    @Scheduled(fixedDelayString = "${app.stats.rollup.rebuild-ms:86400000}",
+            initialDelayString = "${app.stats.rollup.rebuild-ms:86400000}")
+    public void rebuildRecent() {
+        SortedSet<LocalDate> days = new TreeSet<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < recentDays; i++) days.add(today.minusDays(i));
+        for (LocalDate d : touched) {
+            touched.remove(d);
+            days.add(d);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.execute("lock table reservation_daily_stats in exclusive mode");
+                String insert = REBUILD_SQL.formatted("where created_at >= ? and created_at < ?");
+                for (LocalDate d : days) {
+                    Timestamp from = Timestamp.valueOf(d.atStartOfDay());
+                    Timestamp to = Timestamp.valueOf(d.plusDays(1).atStartOfDay());
+                    jdbcTemplate.update("delete from reservation_daily_stats where day = ?", Date.valueOf(d));
+                    jdbcTemplate.update(insert, from, to, from, to);
+                }
+            });
+        } catch (RuntimeException e) {
+            // repris au prochain passage
+            touched.addAll(days);
+            throw e;
+        }
+        topK.rebuild();
+        statsService.invalidate(days);
+    }
+}
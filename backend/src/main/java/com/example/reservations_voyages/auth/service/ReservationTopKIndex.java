@@ -0,0 +1,214 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.index.ReloadableIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tops approchés (vols, hôtels, clients par nombre de réservations) en mémoire, un résumé
+ * Space-Saving de taille fixe par jour de création et par dimension (VOL / HOTEL / CLIENT).
+ *
+ * Une réservation = un incrément (O(log m), m = capacité fixe). Une période = fusion des résumés
+ * de ses jours. Chaque compte estimé est un majorant : compte - erreur <= réel <= compte, et tout
+ * élément absent du résultat a un compte réel <= errorBound.
+ * Alimenté après commit par ReservationStatsRollup ; les retraits (suppressions admin) ne sont pas
+ * pris en compte par Space-Saving et sont corrigés au rechargement périodique depuis l'agrégat journalier.
+ */
+@Component
+public class ReservationTopKIndex extends ReloadableIndex {
+
+    // compte exact par (jour, dim, id), les plus gros d'abord
+    private static final String LOAD_SQL = """
+        select day, dim, dim_id, sum(cnt) as c
+        from reservation_daily_stats
+        where dim <> 'ALL'
+        group by day, dim, dim_id
+        having sum(cnt) > 0
+        order by day, dim, c desc
+        """;
+
+    public record Estimate(long id, long count, long error) {}
+
+    public record TopK(List<Estimate> items, long errorBound) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+
+    // jour (epoch day) -> dimension -> résumé
+    private volatile Map<Long, Map<String, SpaceSaving>> days = new ConcurrentHashMap<>();
+
+    public ReservationTopKIndex(JdbcTemplate jdbcTemplate,
+                                @Value("${app.stats.topk.capacity:64}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+    }
+
+    // ===================== LECTURE =====================
+    // n premiers de la dimension sur [from, to] (bornes incluses)
+    public TopK top(String dim, LocalDate from, LocalDate to, int n) {
+        Map<Long, Map<String, SpaceSaving>> snapshot = days;
+        List<SpaceSaving> parts = new ArrayList<>();
+        for (long d = from.toEpochDay(); d <= to.toEpochDay(); d++) {
+            Map<String, SpaceSaving> day = snapshot.get(d);
+            SpaceSaving s = day == null ? null : day.get(dim);
+            if (s != null) parts.add(s);
+        }
+        return merge(parts, capacity).top(n);
+    }
+
+    // ===================== MISES A JOUR (après commit) =====================
+    public void add(String dim, LocalDate day, long id, long n) {
+        if (n <= 0) return;
+        SpaceSaving s = days.computeIfAbsent(day.toEpochDay(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(dim, k -> new SpaceSaving(capacity));
+        synchronized (s) {
+            s.offer(id, n);
+        }
+    }
+
+    // ===================== CHARGEMENT =====================
+    @Override
+    protected String describe() {
+        return "Reservation top-K index: " + days.size() + " jour(s)";
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.stats.topk.refresh-ms:3600000}",
+            initialDelayString = "${app.stats.topk.refresh-ms:3600000}")
+    public void rebuild() {
+        Map<Long, Map<String, SpaceSaving>> built = new ConcurrentHashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            // lignes triées par compte décroissant : les m premières sont exactes, les suivantes
+            // ne font qu'augmenter le total (leur compte est <= au minimum gardé)
+            built.computeIfAbsent(rs.getDate(1).toLocalDate().toEpochDay(), k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(rs.getString(2), k -> new SpaceSaving(capacity))
+                    .load(rs.getLong(3), rs.getLong(4));
+        });
+        // une réservation commitée pendant le chargement peut manquer : corrigée au prochain rebuild
+        days = built;
+    }
+
+    // ===================== SPACE-SAVING =====================
+    private static final class Counter {
+        final long id;
+        long count;
+        long error;
+
+        Counter(long id, long count, long error) {
+            this.id = id;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Counter> BY_COUNT = Comparator
+            .comparingLong((Counter c) -> c.count)
+            .thenComparingLong(c -> c.id);
+
+    static final class SpaceSaving {
+        private final int capacity;
+        private final Map<Long, Counter> counters = new HashMap<>();
+        private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+        // majorant du compte des éléments écartés au chargement ou à la fusion
+        private long dropped;
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void offer(long id, long n) {
+            Counter c = counters.get(id);
+            if (c != null) {
+                byCount.remove(c);
+                c.count += n;
+            } else if (counters.size() < capacity) {
+                c = new Counter(id, n, 0);
+                counters.put(id, c);
+            } else {
+                // remplace le plus petit : le nouveau hérite de son compte comme erreur possible
+                Counter min = byCount.pollFirst();
+                counters.remove(min.id);
+                c = new Counter(id, min.count + n, min.count);
+                counters.put(id, c);
+            }
+            byCount.add(c);
+        }
+
+        // chargement exact (comptes décroissants)
+        void load(long id, long n) {
+            if (counters.size() < capacity) {
+                Counter c = new Counter(id, n, 0);
+                counters.put(id, c);
+                byCount.add(c);
+            } else {
+                dropped = Math.max(dropped, n);
+            }
+        }
+
+        // compte réel maximal d'un élément non suivi
+        long absentBound() {
+            long min = counters.size() < capacity ? 0 : byCount.first().count;
+            return Math.max(min, dropped);
+        }
+
+        // un élément suivi mais hors des n premiers compte au plus autant que le (n+1)-ième
+        TopK top(int n) {
+            List<Estimate> out = new ArrayList<>(Math.min(n, counters.size()));
+            long bound = absentBound();
+            for (Counter c : byCount.descendingSet()) {
+                if (out.size() == n) {
+                    bound = Math.max(bound, c.count);
+                    break;
+                }
+                out.add(new Estimate(c.id, c.count, c.error));
+            }
+            return new TopK(out, bound);
+        }
+    }
+
+    // fusion : un élément absent d'un résumé y compte pour le majorant de ce résumé (compte et erreur),
+    // puis on garde les m plus gros (Agarwal et al., "Mergeable summaries")
+    static SpaceSaving merge(List<SpaceSaving> parts, int capacity) {
+        SpaceSaving out = new SpaceSaving(capacity);
+
+        // id -> {somme des (compte - majorant), somme des (erreur - majorant)} sur les résumés qui le suivent
+        Map<Long, long[]> acc = new HashMap<>();
+        long absentSum = 0;
+        for (SpaceSaving p : parts) {
+            synchronized (p) {
+                long bound = p.absentBound();
+                absentSum += bound;
+                for (Counter c : p.counters.values()) {
+                    long[] a = acc.computeIfAbsent(c.id, k -> new long[2]);
+                    a[0] += c.count - bound;
+                    a[1] += c.error - bound;
+                }
+            }
+        }
+
+        List<Counter> merged = new ArrayList<>(acc.size());
+        for (Map.Entry<Long, long[]> e : acc.entrySet()) {
+            long[] a = e.getValue();
+            merged.add(new Counter(e.getKey(), absentSum + a[0], absentSum + a[1]));
+        }
+        merged.sort(BY_COUNT.reversed());
+
+        out.dropped = absentSum;
+        for (int i = 0; i < merged.size(); i++) {
+            Counter c = merged.get(i);
+            if (i < capacity) {
+                out.counters.put(c.id, c);
+                out.byCount.add(c);
+            } else {
+                out.dropped = Math.max(out.dropped, c.count);
+            }
+        }
+        return out;
+    }
+}
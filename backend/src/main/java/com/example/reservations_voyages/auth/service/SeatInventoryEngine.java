@@ -0,0 +1,180 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.scheduling.SchedulingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock de places des vols tenu en mémoire (mode "app.inventory.vols.in-memory=true").
+ *
+ * Les compteurs sont protégés par des verrous striés : un aller-retour verrouille ses deux stripes
+ * (ordre croissant) et réserve les deux vols ou aucun. La base est mise à jour en différé :
+ * chaque reservation_vols créée en mémoire porte seats_synced = false, et {@link #flush()}
+ * applique ces lignes à vols.places_disponibles par lots. Au démarrage, le même flush rejoue
+ * ce qui n'avait pas été appliqué avant un arrêt brutal.
+ */
+@Component
+public class SeatInventoryEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatInventoryEngine.class);
+
+    private static final int STRIPES = 64;
+
+    // résultat de reserve()
+    public static final int OK = 0;
+    public static final int NO_SEATS_ALLER = 1;
+    public static final int NO_SEATS_RETOUR = 2;
+
+    // places restantes = places_disponibles en base - réservations non encore appliquées
+    private static final String LOAD_SQL = """
+        select v.places_disponibles - coalesce((
+            select sum(r.nb_places) from reservation_vols r
+            where r.seats_synced = false and r.status <> 'CANCELED'
+              and (r.vol_id = v.id or r.vol_retour_id = v.id)
+        ), 0)
+        from vols v where v.id = ?
+        """;
+
+    // un lot : décrémente les vols concernés puis marque les réservations comme appliquées
+    private static final String FLUSH_SQL = """
+        with batch as (
+            select id, vol_id, vol_retour_id, nb_places, status from reservation_vols
+            where seats_synced = false
+            order by id
+            limit ?
+            for update skip locked
+        ), legs as (
+            select vol_id as vid, nb_places from batch where status <> 'CANCELED'
+            union all
+            select vol_retour_id, nb_places from batch where status <> 'CANCELED' and vol_retour_id is not null
+        ), applied as (
+            update vols v set places_disponibles = v.places_disponibles - l.n, version = v.version + 1
+            from (select vid, sum(nb_places) as n from legs group by vid) l
+            where v.id = l.vid
+            returning v.id
+        )
+        update reservation_vols r set seats_synced = true
+        from batch b where r.id = b.id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> seats = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    @Value("${app.inventory.vols.in-memory:false}")
+    private boolean enabled;
+
+    @Value("${app.inventory.vols.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    public SeatInventoryEngine(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ===================== RESERVE / RELEASE =====================
+    // volRetourId nullable ; les deux vols sont réservés ensemble ou pas du tout
+    public int reserve(Long volId, Long volRetourId, int nbPlaces) {
+        AtomicInteger aller = counter(volId);
+        AtomicInteger retour = volRetourId != null ? counter(volRetourId) : null;
+
+        int s1 = stripe(volId);
+        int s2 = volRetourId != null ? stripe(volRetourId) : s1;
+        ReentrantLock first = locks[Math.min(s1, s2)];
+        ReentrantLock second = locks[Math.max(s1, s2)];
+
+        first.lock();
+        if (second != first) second.lock();
+        try {
+            if (aller.get() < nbPlaces) return NO_SEATS_ALLER;
+            if (retour != null && retour.get() < nbPlaces) return NO_SEATS_RETOUR;
+
+            aller.addAndGet(-nbPlaces);
+            if (retour != null) retour.addAndGet(-nbPlaces);
+            return OK;
+        } finally {
+            if (second != first) second.unlock();
+            first.unlock();
+        }
+    }
+
+    public void release(Long volId, Long volRetourId, int nbPlaces) {
+        adjust(volId, nbPlaces);
+        if (volRetourId != null) adjust(volRetourId, nbPlaces);
+    }
+
+    // modification admin de placesDisponibles : on décale du même delta (sans recharger)
+    public void adjust(Long volId, int delta) {
+        AtomicInteger c = seats.get(volId);
+        if (c == null) return; // sera chargé depuis la base au prochain accès
+        ReentrantLock lock = locks[stripe(volId)];
+        lock.lock();
+        try {
+            c.addAndGet(delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(Long volId) {
+        seats.remove(volId);
+    }
+
+    private AtomicInteger counter(Long volId) {
+        return seats.computeIfAbsent(volId, id -> {
+            Integer remaining = jdbcTemplate.queryForObject(LOAD_SQL, Integer.class, id);
+            return new AtomicInteger(remaining == null ? 0 : remaining);
+        });
+    }
+
+    private static int stripe(Long volId) {
+        long h = volId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 58); // 6 bits de poids fort -> 0..63
+    }
+
+    // ===================== WRITE-BEHIND =====================
+    @Scheduled(fixedDelayString = "${app.inventory.vols.flush-interval-ms:500}",
+            scheduler = SchedulingConfig.INVENTORY_SCHEDULER)
+    public void scheduledFlush() {
+        if (enabled) flush();
+    }
+
+    // rejoue les réservations non appliquées (arrêt brutal, ou mode désactivé depuis)
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        int replayed = flush();
+        if (replayed > 0) {
+            logger.info("Seat inventory: {} reservation(s) replayed into vols.places_disponibles", replayed);
+        }
+    }
+
+    public int flush() {
+        int total = 0;
+        int n;
+        do {
+            n = transactionTemplate.execute(status -> jdbcTemplate.update(FLUSH_SQL, flushBatchSize));
+            total += n;
+        } while (n == flushBatchSize);
+        return total;
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.FareDay;
+import com.example.reservations_voyages.auth.dto.RouteFlight;
+import com.example.reservations_voyages.common.index.ReloadableIndex;
+import com.example.reservations_voyages.common.tx.AfterCommit;
+import com.example.reservations_voyages.user.entity.Vol;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Index mémoire des vols par trajet (aeroportDepart, aeroportArrivee).
+ *
+ * Chaque trajet est un jeu de tableaux primitifs triés par (départ, id) : une recherche
+ * "A→B entre deux dates" est une recherche dichotomique, sans aller en base.
+ * Les tableaux sont recopiés à chaque ajout / suppression (rares) ; les places sont
+ * modifiées sur place (position du vol retrouvée en O(1)). Les vols ANNULE ne sont pas indexés.
+ * Chaque trajet tient aussi son calendrier des prix : jour -> (prix mini, places), recalculé
+ * pour le seul jour touché à chaque modification.
+ * Les écritures sont sérialisées par trajet : deux vols de trajets différents ne s'attendent pas.
+ * Mis à jour après commit par VolService et InventoryService, et reconstruit
+ * périodiquement depuis la table vols (nouvel état publié d'un bloc) pour corriger toute dérive.
+ */
+@Component
+public class VolRouteIndex extends ReloadableIndex {
+
+    private static final String LOAD_SQL = """
+        select id, aeroport_depart, aeroport_arrivee, date_heure_depart, prix_base, places_disponibles,
+               date_heure_arrivee
+        from vols
+        where statut <> 'ANNULE'
+        order by aeroport_depart, aeroport_arrivee, date_heure_depart, id
+        """;
+
+    // un trajet ; les tableaux ne changent plus une fois publiés (sauf les places)
+    private static final class Route {
+        final long[] departs;   // LocalDateTime encodé en secondes (UTC arbitraire, seul l'ordre compte)
+        final long[] arrivees;
+        final long[] ids;
+        final long[] prixCents;
+        final AtomicIntegerArray places;
+        final Map<Long, Integer> positions; // id -> indice dans les tableaux
+
+        Route(long[] departs, long[] arrivees, long[] ids, long[] prixCents, AtomicIntegerArray places) {
+            this.departs = departs;
+            this.arrivees = arrivees;
+            this.ids = ids;
+            this.prixCents = prixCents;
+            this.places = places;
+            this.positions = new HashMap<>(ids.length * 2);
+            for (int i = 0; i < ids.length; i++) {
+                positions.put(ids[i], i);
+            }
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int indexOf(long id) {
+            Integer i = positions.get(id);
+            return i == null ? -1 : i;
+        }
+
+        static final Route EMPTY = new Route(new long[0], new long[0], new long[0], new long[0], new AtomicIntegerArray(0));
+    }
+
+    // état complet de l'index : remplacé d'un bloc par rebuild()
+    private static final class State {
+        final Map<String, Route> routes = new ConcurrentHashMap<>();
+        final Map<Long, String> routeOfVol = new ConcurrentHashMap<>();
+        // graphe : aéroport -> destinations desservies (clés de routes existantes)
+        final Map<String, Set<String>> destinations = new ConcurrentHashMap<>();
+        // calendrier : trajet -> jour (epoch day) -> prix mini en centimes << 24 | places du jour
+        final Map<String, NavigableMap<Long, Long>> calendars = new ConcurrentHashMap<>();
+    }
+
+    // un vol vu par le moteur d'itinéraires (temps en secondes, cf. encode)
+    public interface LegVisitor {
+        void visit(long volId, String aeroportArrivee, long depart, long arrivee, long prixCents);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile State state = new State();
+    // verrou d'écriture par trajet (gardé d'un rebuild à l'autre)
+    private final Map<String, Object> routeLocks = new ConcurrentHashMap<>();
+
+    public VolRouteIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ===================== RECHERCHE =====================
+    // départs dans [from, to) ; from / to nullables
+    public List<RouteFlight> search(String depart, String arrivee,
+                                    LocalDateTime from, LocalDateTime to, int minPlaces) {
+        Route r = state.routes.getOrDefault(key(depart, arrivee), Route.EMPTY);
+
+        int start = from == null ? 0 : lowerBound(r.departs, encode(from));
+        int end = to == null ? r.size() : lowerBound(r.departs, encode(to));
+
+        List<RouteFlight> out = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            int places = r.places.get(i);
+            if (places < minPlaces) continue;
+            out.add(new RouteFlight(r.ids[i], decode(r.departs[i]),
+                    BigDecimal.valueOf(r.prixCents[i], 2), places));
+        }
+        return out;
+    }
+
+    // vols au départ de "depart" (toutes destinations) partant dans [from, to) avec au moins minPlaces
+    public void forEachDeparture(String depart, long from, long to, int minPlaces, LegVisitor visitor) {
+        State st = state;
+        for (String arrivee : st.destinations.getOrDefault(depart, Set.of())) {
+            Route r = st.routes.get(key(depart, arrivee));
+            if (r == null) continue;
+            int end = lowerBound(r.departs, to);
+            for (int i = lowerBound(r.departs, from); i < end; i++) {
+                if (r.places.get(i) < minPlaces) continue;
+                visitor.visit(r.ids[i], arrivee, r.departs[i], r.arrivees[i], r.prixCents[i]);
+            }
+        }
+    }
+
+    // jours de [from, to) ayant au moins un vol avec des places ; prix mini parmi ces vols
+    public List<FareDay> fareCalendar(String depart, String arrivee, LocalDate from, LocalDate to) {
+        NavigableMap<Long, Long> cal = state.calendars.get(key(depart, arrivee));
+        if (cal == null) return List.of();
+
+        List<FareDay> out = new ArrayList<>();
+        cal.subMap(from.toEpochDay(), true, to.toEpochDay(), false).forEach((day, packed) ->
+                out.add(new FareDay(LocalDate.ofEpochDay(day),
+                        BigDecimal.valueOf(packed >>> 24, 2), (int) (packed & 0xFFFFFF))));
+        return out;
+    }
+
+    // premier indice i tel que a[i] >= v
+    private static int lowerBound(long[] a, long v) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < v) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // ===================== MISES A JOUR (après commit) =====================
+    public void volSaved(Vol vol) {
+        long id = vol.getId();
+        String routeKey = key(vol.getAeroportDepart(), vol.getAeroportArrivee());
+        long depart = encode(vol.getDateHeureDepart());
+        long arrivee = encode(vol.getDateHeureArrivee());
+        long prix = vol.getPrixBase().movePointRight(2).longValue();
+        int places = vol.getPlacesDisponibles();
+        boolean indexed = !"ANNULE".equals(vol.getStatut());
+
+        AfterCommit.run(() -> {
+            State st = state;
+            // changement de trajet : retiré de l'ancien, puis ajouté au nouveau (chacun sous son verrou)
+            String previous = st.routeOfVol.get(id);
+            if (previous != null && !previous.equals(routeKey)) {
+                synchronized (lock(previous)) {
+                    removeNow(st, previous, id);
+                }
+            }
+            synchronized (lock(routeKey)) {
+                removeNow(st, routeKey, id);
+                if (indexed) insertNow(st, routeKey, id, depart, arrivee, prix, places);
+            }
+        });
+    }
+
+    public void volDeleted(Long volId) {
+        AfterCommit.run(() -> {
+            State st = state;
+            String routeKey = st.routeOfVol.get(volId);
+            if (routeKey == null) return;
+            synchronized (lock(routeKey)) {
+                removeNow(st, routeKey, volId);
+            }
+        });
+    }
+
+    // réservation (delta < 0) ou libération (delta > 0) de places
+    public void adjustSeats(Long volId, int delta) {
+        if (delta == 0) return;
+        AfterCommit.run(() -> {
+            State st = state;
+            String routeKey = st.routeOfVol.get(volId);
+            if (routeKey == null) return;
+            synchronized (lock(routeKey)) {
+                Route r = st.routes.get(routeKey);
+                int i = r == null ? -1 : r.indexOf(volId);
+                if (i < 0) return;
+                r.places.addAndGet(i, delta);
+                refreshDay(st, routeKey, day(r.departs[i]));
+            }
+        });
+    }
+
+    private Object lock(String routeKey) {
+        return routeLocks.computeIfAbsent(routeKey, k -> new Object());
+    }
+
+    // appelants : verrou du trajet tenu
+    private static void insertNow(State st, String routeKey, long id, long depart, long arrivee, long prix, int places) {
+        Route r = st.routes.getOrDefault(routeKey, Route.EMPTY);
+        int n = r.size();
+
+        int pos = lowerBound(r.departs, depart);
+        while (pos < n && r.departs[pos] == depart && r.ids[pos] < id) pos++;
+
+        long[] departs = new long[n + 1];
+        long[] arrivees = new long[n + 1];
+        long[] ids = new long[n + 1];
+        long[] prixCents = new long[n + 1];
+        int[] seats = new int[n + 1];
+        for (int i = 0, j = 0; i <= n; i++) {
+            if (i == pos) {
+                departs[i] = depart;
+                arrivees[i] = arrivee;
+                ids[i] = id;
+                prixCents[i] = prix;
+                seats[i] = places;
+            } else {
+                departs[i] = r.departs[j];
+                arrivees[i] = r.arrivees[j];
+                ids[i] = r.ids[j];
+                prixCents[i] = r.prixCents[j];
+                seats[i] = r.places.get(j);
+                j++;
+            }
+        }
+        st.routes.put(routeKey, new Route(departs, arrivees, ids, prixCents, new AtomicIntegerArray(seats)));
+        st.routeOfVol.put(id, routeKey);
+        linkRoute(st, routeKey);
+        refreshDay(st, routeKey, day(depart));
+    }
+
+    private static void removeNow(State st, String routeKey, long id) {
+        Route r = st.routes.get(routeKey);
+        int pos = r == null ? -1 : r.indexOf(id);
+        if (pos < 0) return;
+        st.routeOfVol.remove(id, routeKey);
+
+        int n = r.size();
+        if (n == 1) {
+            st.routes.remove(routeKey);
+            st.calendars.remove(routeKey);
+            unlinkRoute(st, routeKey);
+            return;
+        }
+        long[] departs = new long[n - 1];
+        long[] arrivees = new long[n - 1];
+        long[] ids = new long[n - 1];
+        long[] prixCents = new long[n - 1];
+        int[] seats = new int[n - 1];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (i == pos) continue;
+            departs[j] = r.departs[i];
+            arrivees[j] = r.arrivees[i];
+            ids[j] = r.ids[i];
+            prixCents[j] = r.prixCents[i];
+            seats[j] = r.places.get(i);
+            j++;
+        }
+        st.routes.put(routeKey, new Route(departs, arrivees, ids, prixCents, new AtomicIntegerArray(seats)));
+        refreshDay(st, routeKey, day(r.departs[pos]));
+    }
+
+    // recalcule une case du calendrier à partir des vols du jour (tranche trouvée par dichotomie)
+    private static void refreshDay(State st, String routeKey, long day) {
+        Route r = st.routes.get(routeKey);
+        NavigableMap<Long, Long> cal = st.calendars.computeIfAbsent(routeKey, k -> new ConcurrentSkipListMap<>());
+        if (r == null) {
+            cal.remove(day);
+            return;
+        }
+        computeDay(r, day, cal);
+    }
+
+    private static void computeDay(Route r, long day, NavigableMap<Long, Long> cal) {
+        long min = Long.MAX_VALUE;
+        int seats = 0;
+        int end = lowerBound(r.departs, (day + 1) * 86400);
+        for (int i = lowerBound(r.departs, day * 86400); i < end; i++) {
+            int p = r.places.get(i);
+            if (p <= 0) continue;
+            min = Math.min(min, r.prixCents[i]);
+            seats += p;
+        }
+        if (min == Long.MAX_VALUE) cal.remove(day);
+        else cal.put(day, (min << 24) | Math.min(seats, 0xFFFFFF));
+    }
+
+    private static long day(long seconds) {
+        return Math.floorDiv(seconds, 86400);
+    }
+
+    private static void linkRoute(State st, String routeKey) {
+        String[] ends = routeKey.split("\n", 2);
+        st.destinations.computeIfAbsent(ends[0], a -> ConcurrentHashMap.newKeySet()).add(ends[1]);
+    }
+
+    private static void unlinkRoute(State st, String routeKey) {
+        String[] ends = routeKey.split("\n", 2);
+        Set<String> dest = st.destinations.get(ends[0]);
+        if (dest != null) dest.remove(ends[1]);
+    }
+
+    // ===================== CHARGEMENT =====================
+    @Override
+    protected String describe() {
+        State st = state;
+        return "Route index: " + st.routeOfVol.size() + " vol(s) sur " + st.routes.size() + " trajet(s)";
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.search.route-index.refresh-ms:300000}",
+            initialDelayString = "${app.search.route-index.refresh-ms:300000}")
+    public void rebuild() {
+        Map<String, List<Object[]>> rows = new LinkedHashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            rows.computeIfAbsent(key(rs.getString(2), rs.getString(3)), k -> new ArrayList<>())
+                    .add(new Object[]{
+                            rs.getLong(1),
+                            encode(rs.getTimestamp(4).toLocalDateTime()),
+                            rs.getBigDecimal(5).movePointRight(2).longValue(),
+                            rs.getInt(6),
+                            encode(rs.getTimestamp(7).toLocalDateTime())
+                    });
+        });
+
+        State built = new State();
+        rows.forEach((routeKey, list) -> {
+            int n = list.size();
+            long[] departs = new long[n];
+            long[] arrivees = new long[n];
+            long[] ids = new long[n];
+            long[] prixCents = new long[n];
+            int[] seats = new int[n];
+            for (int i = 0; i < n; i++) {
+                Object[] row = list.get(i);
+                ids[i] = (Long) row[0];
+                departs[i] = (Long) row[1];
+                prixCents[i] = (Long) row[2];
+                seats[i] = (Integer) row[3];
+                arrivees[i] = (Long) row[4];
+                built.routeOfVol.put(ids[i], routeKey);
+            }
+            Route r = new Route(departs, arrivees, ids, prixCents, new AtomicIntegerArray(seats));
+            built.routes.put(routeKey, r);
+            linkRoute(built, routeKey);
+
+            NavigableMap<Long, Long> cal = new ConcurrentSkipListMap<>();
+            long last = Long.MIN_VALUE;
+            for (long dep : r.departs) {
+                if (day(dep) != last) computeDay(r, last = day(dep), cal);
+            }
+            built.calendars.put(routeKey, cal);
+        });
+
+        // les lecteurs voient l'ancien état ou le nouveau, jamais un mélange ; une mise à jour
+        // commitée pendant la lecture peut être perdue : corrigée au prochain rebuild
+        state = built;
+    }
+
+    // ===================== OUTILS =====================
+    private static String key(String depart, String arrivee) {
+        return depart + "\n" + arrivee;
+    }
+
+    public static long encode(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime decode(long s) {
+        return LocalDateTime.ofEpochSecond(s, 0, ZoneOffset.UTC);
+    }
+}
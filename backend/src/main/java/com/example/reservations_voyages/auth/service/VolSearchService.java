@@ -0,0 +1,133 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.CursorPage;
+import com.example.reservations_voyages.auth.dto.VolSearchCriteria;
+import com.example.reservations_voyages.auth.dto.VolView;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.user.entity.Vol;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Recherche client des vols : filtres + pagination par curseur (keyset) sur (clé de tri, id).
+ * Chaque page est une requête bornée par "size", quelle que soit la taille de la table,
+ * projetée directement en {@link VolView} (pas d'entités managées).
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class VolSearchService {
+
+    private static final int DEFAULT_SIZE = 20;
+    private static final int MAX_SIZE = 100;
+
+    private final EntityManager entityManager;
+
+    public CursorPage<VolView> search(VolSearchCriteria c) {
+        boolean byPrix = "PRIX".equalsIgnoreCase(c.sort());
+        if (c.sort() != null && !byPrix && !"DEPART".equalsIgnoreCase(c.sort())) {
+            throw new BadRequestException("sort doit être DEPART ou PRIX");
+        }
+        int size = c.size() == null ? DEFAULT_SIZE : Math.max(1, Math.min(MAX_SIZE, c.size()));
+        String sortField = byPrix ? "prixBase" : "dateHeureDepart";
+
+        Specification<Vol> spec = filters(c).and(after(sortField, c.cursor()));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<VolView> cq = cb.createQuery(VolView.class);
+        Root<Vol> root = cq.from(Vol.class);
+        cq.select(cb.construct(VolView.class,
+                root.get("id"), root.get("numeroVol"), root.get("compagnie"),
+                root.get("aeroportDepart"), root.get("aeroportArrivee"),
+                root.get("dateHeureDepart"), root.get("dateHeureArrivee"),
+                root.get("placesDisponibles"), root.get("prixBase"), root.get("statut"), root.get("version")));
+        cq.where(spec.toPredicate(root, cq, cb));
+        cq.orderBy(cb.asc(root.get(sortField)), cb.asc(root.get("id")));
+
+        // size + 1 : la ligne en trop indique seulement qu'une page suivante existe
+        List<VolView> rows = entityManager.createQuery(cq).setMaxResults(size + 1).getResultList();
+
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            VolView last = rows.get(size - 1);
+            next = new VolCursor(sortField, byPrix ? last.prixBase() : last.dateHeureDepart(), last.id()).encode();
+        }
+        return new CursorPage<>(rows, next);
+    }
+
+    // ===================== FILTRES =====================
+    private static Specification<Vol> filters(VolSearchCriteria c) {
+        return (root, query, cb) -> {
+            List<Predicate> p = new ArrayList<>();
+            if (c.aeroportDepart() != null) p.add(cb.equal(root.get("aeroportDepart"), c.aeroportDepart()));
+            if (c.aeroportArrivee() != null) p.add(cb.equal(root.get("aeroportArrivee"), c.aeroportArrivee()));
+            if (c.departFrom() != null) {
+                p.add(cb.greaterThanOrEqualTo(root.get("dateHeureDepart"), c.departFrom().atStartOfDay()));
+            }
+            if (c.departTo() != null) {
+                p.add(cb.lessThan(root.get("dateHeureDepart"), c.departTo().plusDays(1).atStartOfDay()));
+            }
+            if (c.minPlaces() != null) p.add(cb.greaterThanOrEqualTo(root.get("placesDisponibles"), c.minPlaces()));
+            if (c.maxPrix() != null) p.add(cb.lessThanOrEqualTo(root.get("prixBase"), c.maxPrix()));
+            if (c.statut() != null) p.add(cb.equal(root.get("statut"), c.statut()));
+            if (c.compagnie() != null) p.add(cb.equal(root.get("compagnie"), c.compagnie()));
+            return cb.and(p.toArray(Predicate[]::new));
+        };
+    }
+
+    // (clé, id) > (clé du curseur, id du curseur)
+    private static Specification<Vol> after(String sortField, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return (root, query, cb) -> cb.conjunction();
+        }
+        VolCursor after = VolCursor.decode(sortField, cursor);
+        long id = after.id();
+
+        if (after.value() instanceof BigDecimal prix) {
+            return (root, query, cb) -> cb.or(
+                    cb.greaterThan(root.get("prixBase"), prix),
+                    cb.and(cb.equal(root.get("prixBase"), prix), cb.greaterThan(root.get("id"), id)));
+        }
+        LocalDateTime depart = (LocalDateTime) after.value();
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("dateHeureDepart"), depart),
+                cb.and(cb.equal(root.get("dateHeureDepart"), depart), cb.greaterThan(root.get("id"), id)));
+    }
+
+    // ===================== CURSEUR (opaque pour le client) =====================
+    // "champ de tri|valeur|id" en base64 url-safe ; valeur = BigDecimal (prixBase) ou LocalDateTime
+    private record VolCursor(String sortField, Object value, Long id) {
+        String encode() {
+            String v = value instanceof BigDecimal prix ? prix.toPlainString() : value.toString();
+            String raw = sortField + "|" + v + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // tout le décodage ici : un curseur altéré donne 400, jamais une exception de parsing en 500
+        static VolCursor decode(String sortField, String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+                if (!parts[0].equals(sortField)) throw new IllegalArgumentException();
+                Object value = "prixBase".equals(sortField) ? new BigDecimal(parts[1]) : LocalDateTime.parse(parts[1]);
+                return new VolCursor(sortField, value, Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Curseur invalide");
+            }
+        }
+    }
+}
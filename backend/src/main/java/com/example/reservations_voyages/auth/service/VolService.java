@@ -1,6 +1,8 @@
 package com.example.reservations_voyages.auth.service;
 
 import com.example.reservations_voyages.user.entity.Vol;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.common.exception.ConflictException;
 import com.example.reservations_voyages.common.exception.ResourceNotFoundException;
 import com.example.reservations_voyages.user.repo.VolRepository;
 import jakarta.validation.Valid;
@@ -16,6 +18,9 @@ import java.util.List;
 public class VolService {
 
     private final VolRepository volRepository;
+    private final InventoryService inventoryService;
+    private final VolRouteIndex routeIndex;
+    private final AutocompleteIndex autocompleteIndex;
 
     public List<Vol> getAllVols() {
         return volRepository.findAll();
@@ -37,12 +42,26 @@ public class VolService {
                     "Un vol avec le numéro " + vol.getNumeroVol() + " existe déjà"
             );
         }
-        return volRepository.save(vol);
+        Vol saved = volRepository.save(vol);
+        routeIndex.volSaved(saved);
+        autocompleteIndex.labelChanged(AutocompleteIndex.AEROPORT, null, saved.getAeroportDepart());
+        autocompleteIndex.labelChanged(AutocompleteIndex.AEROPORT, null, saved.getAeroportArrivee());
+        return saved;
     }
 
     public Vol updateVol(Long id, @Valid Vol volDetails) {
         Vol vol = getVolById(id);
 
+        // placesDisponibles est une valeur absolue : sans la version lue par l'admin, elle écraserait
+        // les places réservées entre-temps. Pas de nouvel essai automatique (il réappliquerait la valeur).
+        if (volDetails.getVersion() == null) {
+            throw new BadRequestException("La version du vol est requise pour le modifier");
+        }
+        // formulaire basé sur une version périmée (places réservées entre-temps, autre admin...)
+        if (!volDetails.getVersion().equals(vol.getVersion())) {
+            throw new ConflictException("Le vol a été modifié entre-temps, rechargez-le avant de l'enregistrer");
+        }
+
         if (!vol.getNumeroVol().equals(volDetails.getNumeroVol())
                 && volRepository.existsByNumeroVol(volDetails.getNumeroVol())) {
             throw new IllegalArgumentException(
@@ -50,21 +69,31 @@ public class VolService {
             );
         }
 
+        autocompleteIndex.labelChanged(AutocompleteIndex.AEROPORT, vol.getAeroportDepart(), volDetails.getAeroportDepart());
+        autocompleteIndex.labelChanged(AutocompleteIndex.AEROPORT, vol.getAeroportArrivee(), volDetails.getAeroportArrivee());
+
         vol.setNumeroVol(volDetails.getNumeroVol());
         vol.setCompagnie(volDetails.getCompagnie());
         vol.setAeroportDepart(volDetails.getAeroportDepart());
         vol.setAeroportArrivee(volDetails.getAeroportArrivee());
         vol.setDateHeureDepart(volDetails.getDateHeureDepart());
         vol.setDateHeureArrivee(volDetails.getDateHeureArrivee());
+        inventoryService.volSeatsEdited(id, volDetails.getPlacesDisponibles() - vol.getPlacesDisponibles());
         vol.setPlacesDisponibles(volDetails.getPlacesDisponibles());
         vol.setPrixBase(volDetails.getPrixBase());
         vol.setStatut(volDetails.getStatut());
 
-        return volRepository.save(vol);
+        Vol saved = volRepository.save(vol);
+        routeIndex.volSaved(saved);
+        return saved;
     }
 
     public void deleteVol(Long id) {
         Vol vol = getVolById(id);
         volRepository.delete(vol);
+        inventoryService.volDeleted(id);
+        routeIndex.volDeleted(id);
+        autocompleteIndex.labelChanged(AutocompleteIndex.AEROPORT, vol.getAeroportDepart(), null);
+        autocompleteIndex.labelChanged(AutocompleteIndex.AEROPORT, vol.getAeroportArrivee(), null);
     }
 }
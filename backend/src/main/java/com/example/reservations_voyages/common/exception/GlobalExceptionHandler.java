@@ -2,6 +2,7 @@ package com.example.reservations_voyages.common.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -44,6 +45,26 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    // =====================================================================
+    // Conflit (ex: modification concurrente, verrou optimiste)
+    // =====================================================================
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ErrorResponse> handleConflict(ConflictException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                ex.getMessage(),
+                LocalDateTime.now(),
+                null
+        );
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    // réservation commitée entre la lecture et l'écriture d'une modification admin (sans nouvel essai)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        return handleConflict(new ConflictException("Ressource modifiée en parallèle, rechargez-la avant de l'enregistrer"));
+    }
+
     // =====================================================================
     // Unauthorized (ex: mauvais JWT, token expiré, etc.)
     // =====================================================================
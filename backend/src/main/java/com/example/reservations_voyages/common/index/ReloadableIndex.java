@@ -0,0 +1,27 @@
+package com.example.reservations_voyages.common.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Index mémoire reconstruit depuis la base : chargement complet au démarrage, puis rechargement
+ * périodique par la sous-classe (rebuild() annotée @Scheduled avec sa propre période) pour
+ * corriger toute dérive des mises à jour incrémentales (appliquées via AfterCommit).
+ */
+public abstract class ReloadableIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+        logger.info(describe());
+    }
+
+    public abstract void rebuild();
+
+    // ligne de log après le chargement initial (taille de l'index)
+    protected abstract String describe();
+}
@@ -0,0 +1,39 @@
+package com.example.reservations_voyages.common.scheduling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Deux ordonnanceurs pour les tâches @Scheduled :
+ * - taskScheduler (par défaut) : reconstructions d'index, agrégats, purges, pool spring.task.scheduling.pool.size ;
+ * - inventoryScheduler : write-behind des places et expiration des réservations non payées, sur leurs
+ *   propres threads pour qu'une reconstruction lente (ou le verrou de l'agrégat) ne les retarde pas.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String INVENTORY_SCHEDULER = "inventoryScheduler";
+
+    // déclaré ici : un autre TaskScheduler désactive celui auto-configuré par Spring Boot
+    @Bean
+    @Primary
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(INVENTORY_SCHEDULER)
+    public ThreadPoolTaskScheduler inventoryScheduler(
+            @Value("${app.scheduling.inventory.pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("inventory-");
+        // dernier flush / tick terminé avant l'arrêt
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
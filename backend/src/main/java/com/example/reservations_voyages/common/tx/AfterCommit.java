@@ -0,0 +1,42 @@
+package com.example.reservations_voyages.common.tx;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions différées à la fin de la transaction courante (index mémoire, caches...).
+ * Hors transaction (rechargement, tests), l'action est appliquée tout de suite.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    // appliquée seulement si la transaction est validée
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // onCommit = false : appliquée seulement si la transaction est annulée
+    public static void onCompletion(boolean onCommit, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit) action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if ((status == STATUS_COMMITTED) == onCommit) action.run();
+            }
+        });
+    }
+}
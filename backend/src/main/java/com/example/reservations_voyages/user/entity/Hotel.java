@@ -64,4 +64,9 @@ public class Hotel {
     @Column(name = "equipement")
     @Builder.Default
     private List<String> equipements = new ArrayList<>();
+
+    // verrou optimiste : toute écriture concurrente sur la même ligne fait échouer l'autre
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
@@ -0,0 +1,31 @@
+package com.example.reservations_voyages.user.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// stock de chambres restant pour UNE nuit d'un hôtel (ligne créée à la première réservation qui la couvre)
+@Entity
+@Table(name = "hotel_nights", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_hotel_night", columnNames = {"hotel_id", "night"})
+})
+@Getter @Setter
+@NoArgsConstructor
+public class HotelNight {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(nullable = false)
+    private LocalDate night;
+
+    @Column(nullable = false)
+    private int roomsAvailable;
+}
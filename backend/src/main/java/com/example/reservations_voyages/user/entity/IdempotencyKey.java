@@ -0,0 +1,46 @@
+package com.example.reservations_voyages.user.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// requête POST déjà reçue pour (utilisateur, Idempotency-Key) + sa réponse JSON une fois terminée
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_user_key", columnNames = {"user_email", "idem_key"})
+})
+@Getter @Setter
+@NoArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+
+    @Column(name = "idem_key", nullable = false, length = 100)
+    private String idemKey;
+
+    // endpoint + paramètres de chemin : une même clé ne peut pas servir à deux requêtes différentes
+    @Column(nullable = false)
+    private String scope;
+
+    // SHA-256 du corps de la requête (null pour les clés antérieures)
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    // false = en cours de traitement
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
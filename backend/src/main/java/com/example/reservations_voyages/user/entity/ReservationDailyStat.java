@@ -0,0 +1,54 @@
+package com.example.reservations_voyages.user.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// agrégat journalier des réservations (jour de création x type x statut), maintenu par ReservationStatsRollup.
+// dim = ALL (dim_id = 0), VOL / HOTEL (dim_id = vol aller / hôtel) ou CLIENT (dim_id = client)
+@Entity
+@Table(name = "reservation_daily_stats", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_res_daily_stats", columnNames = {"day", "type", "status", "dim", "dim_id"})
+}, indexes = {
+        // détail d'un vol / hôtel / client sur une période (tops du dashboard)
+        @Index(name = "idx_res_daily_stats_dim", columnList = "dim, dim_id, day")
+})
+@Getter @Setter
+@NoArgsConstructor
+public class ReservationDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false, length = 8)
+    private String type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status;
+
+    @Column(nullable = false, length = 8)
+    private String dim;
+
+    @Column(name = "dim_id", nullable = false)
+    private Long dimId;
+
+    @Column(nullable = false)
+    private long cnt;
+
+    // somme des total_price (tous statuts : le CA confirmé se lit sur status = CONFIRMED)
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    // places (VOL) ou chambres (HOTEL) réservées
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private long units;
+}
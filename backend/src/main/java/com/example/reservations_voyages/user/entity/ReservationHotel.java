@@ -9,7 +9,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservation_hotels")
+@Table(name = "reservation_hotels", indexes = {
+        @Index(name = "idx_res_hotel_status_created", columnList = "status, createdAt"),
+        // flux admin : ORDER BY created_at DESC, id (pagination par curseur), global ou par client
+        @Index(name = "idx_res_hotel_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_res_hotel_client_created", columnList = "client_id, createdAt, id")
+})
 @Getter @Setter
 public class ReservationHotel {
 
@@ -48,4 +53,9 @@ public class ReservationHotel {
 
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // verrou optimiste : toute écriture concurrente sur la même ligne fait échouer l'autre
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
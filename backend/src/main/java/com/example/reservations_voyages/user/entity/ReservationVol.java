@@ -8,7 +8,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservation_vols")
+@Table(name = "reservation_vols", indexes = {
+        @Index(name = "idx_res_vol_seats_synced", columnList = "seats_synced"),
+        @Index(name = "idx_res_vol_status_created", columnList = "status, createdAt"),
+        // flux admin : ORDER BY created_at DESC, id (pagination par curseur), global ou par client
+        @Index(name = "idx_res_vol_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_res_vol_client_created", columnList = "client_id, createdAt, id")
+})
 @Getter @Setter
 public class ReservationVol {
 
@@ -51,4 +57,15 @@ public class ReservationVol {
 
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // false = places retirées en mémoire, pas encore dans vols.places_disponibles (voir SeatInventoryEngine)
+    // jamais réécrit par Hibernate : seuls le flush et claimUnsyncedSeats le modifient
+    @Column(name = "seats_synced", nullable = false, updatable = false,
+            columnDefinition = "boolean default true not null")
+    private boolean seatsSynced = true;
+
+    // verrou optimiste : toute écriture concurrente sur la même ligne fait échouer l'autre
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
@@ -10,6 +10,11 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "vols", uniqueConstraints = {
         @UniqueConstraint(columnNames = "numeroVol")
+}, indexes = {
+        // recherche client : trajet + fenêtre de dates, puis tri / pagination par (clé, id)
+        @Index(name = "idx_vol_route_depart", columnList = "aeroportDepart, aeroportArrivee, dateHeureDepart, id"),
+        @Index(name = "idx_vol_depart", columnList = "dateHeureDepart, id"),
+        @Index(name = "idx_vol_prix", columnList = "prixBase, id")
 })
 @Data                   // ← remplace @Getter + @Setter + @ToString
 @NoArgsConstructor
@@ -60,6 +65,11 @@ public class Vol {
             message = "Le statut doit être DISPONIBLE, COMPLET ou ANNULE")
     @Column(nullable = false)
     private String statut;
+
+    // verrou optimiste : toute écriture concurrente sur la même ligne fait échouer l'autre
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
 
 
@@ -5,115 +5,66 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface AdminStatsRepository extends Repository<ReservationVol, Long> {
 
-    // ===== GLOBAL COUNTS =====
+    // ===== DASHBOARD (agrégat journalier reservation_daily_stats, voir ReservationStatsRollup) =====
+    // lignes dim = ALL : compteurs globaux () et série mensuelle (m)
+    // Colonnes : kind (TOTAL / MONTH), month, cnt, vols, hotels, pending, confirmed, canceled, revenue
     @Query(value = """
-        select
-          (select count(*) from reservation_vols where created_at between :from and :to) +
-          (select count(*) from reservation_hotels where created_at between :from and :to) as total
-        """, nativeQuery = true)
-    long totalCount(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    @Query(value = "select count(*) from reservation_vols where created_at between :from and :to", nativeQuery = true)
-    long volCount(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    @Query(value = "select count(*) from reservation_hotels where created_at between :from and :to", nativeQuery = true)
-    long hotelCount(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    // ===== STATUS COUNTS =====
-    @Query(value = """
-        select
-          (select count(*) from reservation_vols where status='PENDING_PAYMENT' and created_at between :from and :to) +
-          (select count(*) from reservation_hotels where status='PENDING_PAYMENT' and created_at between :from and :to)
-        """, nativeQuery = true)
-    long pendingCount(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    @Query(value = """
-        select
-          (select count(*) from reservation_vols where status='CONFIRMED' and created_at between :from and :to) +
-          (select count(*) from reservation_hotels where status='CONFIRMED' and created_at between :from and :to)
-        """, nativeQuery = true)
-    long confirmedCount(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    @Query(value = """
-        select
-          (select count(*) from reservation_vols where status='CANCELED' and created_at between :from and :to) +
-          (select count(*) from reservation_hotels where status='CANCELED' and created_at between :from and :to)
-        """, nativeQuery = true)
-    long canceledCount(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    // ===== REVENUE CONFIRMED TOTAL =====
-    @Query(value = """
-        select
-          coalesce((select sum(total_price) from reservation_vols where status='CONFIRMED' and created_at between :from and :to), 0) +
-          coalesce((select sum(total_price) from reservation_hotels where status='CONFIRMED' and created_at between :from and :to), 0)
-        """, nativeQuery = true)
-    BigDecimal revenueConfirmedTotal(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    // ===== MONTHLY (COUNT + REVENUE) =====
-    @Query(value = """
-      with all_res as (
-        select date_trunc('month', created_at) as m, total_price, status
-        from reservation_vols where created_at between :from and :to
-        union all
-        select date_trunc('month', created_at) as m, total_price, status
-        from reservation_hotels where created_at between :from and :to
-      )
       select
+        case when grouping(m) = 0 then 'MONTH' else 'TOTAL' end as kind,
         to_char(m, 'YYYY-MM') as month,
-        count(*) as cnt,
-        coalesce(sum(case when status='CONFIRMED' then total_price else 0 end), 0) as revenue
-      from all_res
-      group by m
-      order by m
+        coalesce(sum(cnt), 0) as cnt,
+        coalesce(sum(cnt) filter (where type = 'VOL'), 0) as vols,
+        coalesce(sum(cnt) filter (where type = 'HOTEL'), 0) as hotels,
+        coalesce(sum(cnt) filter (where status = 'PENDING_PAYMENT'), 0) as pending,
+        coalesce(sum(cnt) filter (where status = 'CONFIRMED'), 0) as confirmed,
+        coalesce(sum(cnt) filter (where status = 'CANCELED'), 0) as canceled,
+        coalesce(sum(revenue) filter (where status = 'CONFIRMED'), 0) as revenue
+      from (
+        select type, status, cnt, revenue, date_trunc('month', day) as m
+        from reservation_daily_stats
+        where dim = 'ALL' and day >= :from and day <= :to
+      ) s
+      group by grouping sets ((), (m))
+      order by m nulls first
     """, nativeQuery = true)
-    List<Object[]> monthly(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    List<Object[]> dashboard(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
-    // ===== TOP 5 CLIENTS =====
+    // ===== TOPS : libellés + CA confirmé et places / chambres vendues sur la période, en un aller-retour =====
+    // Colonnes : kind (VOL / HOTEL / CLIENT), id, libellé (numéro vol / nom hôtel / nom client),
+    //            compagnie ou email, route ou ville, revenue, units
     @Query(value = """
-      with all_res as (
-        select client_id, total_price, status, created_at from reservation_vols where created_at between :from and :to
-        union all
-        select client_id, total_price, status, created_at from reservation_hotels where created_at between :from and :to
+      with s as (
+        select dim, dim_id,
+               coalesce(sum(revenue) filter (where status = 'CONFIRMED'), 0) as revenue,
+               coalesce(sum(units) filter (where status = 'CONFIRMED'), 0) as units
+        from reservation_daily_stats
+        where day >= :from and day <= :to
+          and ((dim = 'VOL' and dim_id in (:volIds))
+            or (dim = 'HOTEL' and dim_id in (:hotelIds))
+            or (dim = 'CLIENT' and dim_id in (:clientIds)))
+        group by dim, dim_id
       )
-      select
-        u.id as client_id,
-        u.full_name,
-        u.email,
-        count(*) as cnt,
-        coalesce(sum(case when ar.status='CONFIRMED' then ar.total_price else 0 end), 0) as revenue
-      from all_res ar
-      join users u on u.id = ar.client_id
-      group by u.id, u.full_name, u.email
-      order by cnt desc, revenue desc
-      limit 5
-    """, nativeQuery = true)
-    List<Object[]> topClients(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    // ===== TOP VOLS =====
-    @Query(value = """
-      select vol_id, count(*) as cnt
-      from reservation_vols
-      where created_at between :from and :to
-      group by vol_id
-      order by cnt desc
-      limit 5
-    """, nativeQuery = true)
-    List<Object[]> topVols(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
-
-    // ===== TOP HOTELS =====
-    @Query(value = """
-      select hotel_id, count(*) as cnt
-      from reservation_hotels
-      where created_at between :from and :to
-      group by hotel_id
-      order by cnt desc
-      limit 5
+      select 'VOL' as kind, v.id, v.numero_vol, v.compagnie, v.aeroport_depart || '→' || v.aeroport_arrivee,
+             coalesce(s.revenue, 0), coalesce(s.units, 0)
+      from vols v left join s on s.dim = 'VOL' and s.dim_id = v.id
+      where v.id in (:volIds)
+      union all
+      select 'HOTEL', h.id, h.nom, null, h.ville, coalesce(s.revenue, 0), coalesce(s.units, 0)
+      from hotels h left join s on s.dim = 'HOTEL' and s.dim_id = h.id
+      where h.id in (:hotelIds)
+      union all
+      select 'CLIENT', u.id, u.full_name, u.email, null, coalesce(s.revenue, 0), coalesce(s.units, 0)
+      from users u left join s on s.dim = 'CLIENT' and s.dim_id = u.id
+      where u.id in (:clientIds)
     """, nativeQuery = true)
-    List<Object[]> topHotels(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    List<Object[]> topDetails(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                              @Param("volIds") Collection<Long> volIds,
+                              @Param("hotelIds") Collection<Long> hotelIds,
+                              @Param("clientIds") Collection<Long> clientIds);
 }
@@ -0,0 +1,78 @@
+package com.example.reservations_voyages.user.repo;
+
+import com.example.reservations_voyages.user.entity.HotelNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+// nuits = intervalle [checkIn, checkOut)
+public interface HotelNightRepository extends JpaRepository<HotelNight, Long> {
+
+    // crée les nuits manquantes : stock total moins les réservations en cours qui couvrent la nuit
+    // (réservations antérieures au stock par nuit ; les suivantes ont toujours créé leurs nuits)
+    @Modifying
+    @Query(value = """
+        insert into hotel_nights (hotel_id, night, rooms_available)
+        select :hotelId, cast(d as date), :total - (
+            select coalesce(sum(r.rooms), 0) from reservation_hotels r
+            where r.hotel_id = :hotelId and r.status in ('PENDING_PAYMENT', 'CONFIRMED')
+              and r.check_in <= cast(d as date) and r.check_out > cast(d as date))
+        from generate_series(cast(:checkIn as date), cast(:checkOut as date) - 1, interval '1 day') d
+        on conflict (hotel_id, night) do nothing
+        """, nativeQuery = true)
+    int seedNights(@Param("hotelId") Long hotelId,
+                   @Param("checkIn") LocalDate checkIn,
+                   @Param("checkOut") LocalDate checkOut,
+                   @Param("total") int total);
+
+    // retire :rooms sur chaque nuit du séjour ; nb lignes < nb nuits => au moins une nuit complète
+    @Modifying
+    @Query(value = """
+        update hotel_nights set rooms_available = rooms_available - :rooms
+        where hotel_id = :hotelId and night >= :checkIn and night < :checkOut
+          and rooms_available >= :rooms
+        """, nativeQuery = true)
+    int reserveNights(@Param("hotelId") Long hotelId,
+                      @Param("checkIn") LocalDate checkIn,
+                      @Param("checkOut") LocalDate checkOut,
+                      @Param("rooms") int rooms);
+
+    @Modifying
+    @Query(value = """
+        update hotel_nights set rooms_available = rooms_available + :rooms
+        where hotel_id = :hotelId and night >= :checkIn and night < :checkOut
+        """, nativeQuery = true)
+    int releaseNights(@Param("hotelId") Long hotelId,
+                      @Param("checkIn") LocalDate checkIn,
+                      @Param("checkOut") LocalDate checkOut,
+                      @Param("rooms") int rooms);
+
+    // les nuits sans ligne sont évaluées comme seedNights les créerait
+    @Query(value = """
+        select coalesce(min(coalesce(n.rooms_available, :total - (
+            select coalesce(sum(r.rooms), 0) from reservation_hotels r
+            where r.hotel_id = :hotelId and r.status in ('PENDING_PAYMENT', 'CONFIRMED')
+              and r.check_in <= cast(d as date) and r.check_out > cast(d as date)))), :total)
+        from generate_series(cast(:checkIn as date), cast(:checkOut as date) - 1, interval '1 day') d
+        left join hotel_nights n on n.hotel_id = :hotelId and n.night = cast(d as date)
+        """, nativeQuery = true)
+    int minAvailable(@Param("hotelId") Long hotelId,
+                     @Param("checkIn") LocalDate checkIn,
+                     @Param("checkOut") LocalDate checkOut,
+                     @Param("total") int total);
+
+    // changement de chambresTotales : décale toutes les nuits à venir
+    @Modifying
+    @Query(value = """
+        update hotel_nights set rooms_available = rooms_available + :delta
+        where hotel_id = :hotelId and night >= current_date
+        """, nativeQuery = true)
+    int shiftFutureNights(@Param("hotelId") Long hotelId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("delete from HotelNight n where n.hotelId = :hotelId")
+    int deleteByHotelId(@Param("hotelId") Long hotelId);
+}
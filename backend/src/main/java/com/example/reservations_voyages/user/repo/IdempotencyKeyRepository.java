@@ -0,0 +1,57 @@
+package com.example.reservations_voyages.user.repo;
+
+import com.example.reservations_voyages.user.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+// chaque écriture est sa propre transaction : la clé est visible des autres instances avant l'exécution
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByUserEmailAndIdemKey(String userEmail, String idemKey);
+
+    // 1 = clé réservée par cet appel, 0 = déjà connue
+    @Modifying
+    @Query(value = """
+        insert into idempotency_keys (user_email, idem_key, scope, request_hash, completed, created_at)
+        values (:email, :key, :scope, :hash, false, :now)
+        on conflict (user_email, idem_key) do nothing
+        """, nativeQuery = true)
+    @Transactional
+    int tryInsert(@Param("email") String email, @Param("key") String key,
+                  @Param("scope") String scope, @Param("hash") String requestHash, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update IdempotencyKey k set k.completed = true, k.responseBody = :body where k.userEmail = :email and k.idemKey = :key")
+    @Transactional
+    int complete(@Param("email") String email, @Param("key") String key, @Param("body") String body);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.userEmail = :email and k.idemKey = :key")
+    @Transactional
+    int release(@Param("email") String email, @Param("key") String key);
+
+    // réponse expirée, ou traitement abandonné (crash) depuis trop longtemps
+    @Modifying
+    @Query("""
+        delete from IdempotencyKey k where k.userEmail = :email and k.idemKey = :key
+          and ((k.completed = true and k.createdAt < :completedBefore)
+            or (k.completed = false and k.createdAt < :staleBefore))
+        """)
+    @Transactional
+    int purgeIfExpired(@Param("email") String email, @Param("key") String key,
+                       @Param("completedBefore") Instant completedBefore,
+                       @Param("staleBefore") Instant staleBefore);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :before")
+    @Transactional
+    int deleteAllCreatedBefore(@Param("before") Instant before);
+}
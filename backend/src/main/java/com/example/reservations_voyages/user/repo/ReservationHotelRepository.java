@@ -1,14 +1,25 @@
 package com.example.reservations_voyages.user.repo;
 
 import com.example.reservations_voyages.user.entity.ReservationHotel;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ReservationHotelRepository extends JpaRepository<ReservationHotel, Long> {
     List<ReservationHotel> findByClientIdOrderByCreatedAtDesc(Long clientId);
     Optional<ReservationHotel> findByIdAndClientId(Long id, Long clientId);
-}
-
 
+    // ===== EXPIRATION DES RESERVATIONS NON PAYEES =====
+    @Query("select r.id, r.createdAt from ReservationHotel r where r.status = :status")
+    List<Object[]> findIdAndCreatedAtByStatus(@Param("status") ReservationStatus status);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReservationHotel r where r.id in :ids and r.status = :status")
+    List<ReservationHotel> lockByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status);
+}
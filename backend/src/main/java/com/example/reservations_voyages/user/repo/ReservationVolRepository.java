@@ -1,8 +1,15 @@
 package com.example.reservations_voyages.user.repo;
 
 import com.example.reservations_voyages.user.entity.ReservationVol;
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,5 +17,16 @@ public interface ReservationVolRepository extends JpaRepository<ReservationVol,
     List<ReservationVol> findByClientIdOrderByCreatedAtDesc(Long clientId);
     Optional<ReservationVol> findByIdAndClientId(Long id, Long clientId);
 
-}
+    // 1 = places jamais appliquées en base (rien à rendre côté vols), 0 = déjà appliquées
+    @Modifying
+    @Query(value = "update reservation_vols set seats_synced = true where id = :id and seats_synced = false", nativeQuery = true)
+    int claimUnsyncedSeats(@Param("id") Long id);
+
+    // ===== EXPIRATION DES RESERVATIONS NON PAYEES =====
+    @Query("select r.id, r.createdAt from ReservationVol r where r.status = :status")
+    List<Object[]> findIdAndCreatedAtByStatus(@Param("status") ReservationStatus status);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReservationVol r where r.id in :ids and r.status = :status")
+    List<ReservationVol> lockByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status);
+}
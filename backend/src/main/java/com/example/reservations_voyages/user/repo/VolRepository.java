@@ -1,9 +1,17 @@
 package com.example.reservations_voyages.user.repo;
 
+import com.example.reservations_voyages.auth.dto.VolView;
 import com.example.reservations_voyages.user.entity.Vol;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,9 +20,30 @@ public interface VolRepository extends JpaRepository<Vol, Long> {
     Optional<Vol> findByNumeroVol(String numeroVol);
 
     boolean existsByNumeroVol(String numeroVol);
-}
 
+    // ===== LECTURE CATALOGUE (projection, pas d'entités managées) =====
+    String VIEW = "new com.example.reservations_voyages.auth.dto.VolView(v.id, v.numeroVol, v.compagnie, "
+            + "v.aeroportDepart, v.aeroportArrivee, v.dateHeureDepart, v.dateHeureArrivee, "
+            + "v.placesDisponibles, v.prixBase, v.statut, v.version)";
+
+    @Query("select " + VIEW + " from Vol v order by v.id")
+    List<VolView> findAllViews();
 
+    @Query("select " + VIEW + " from Vol v where v.id = :id")
+    Optional<VolView> findViewById(@Param("id") Long id);
 
+    // verrous pris par id croissant : même ordre que les UPDATE de places (pas d'interblocage)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from Vol v where v.id in :ids order by v.id")
+    List<Vol> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 
+    // ===== STOCK DE PLACES (UPDATE conditionnel, 1 ligne modifiée = OK) =====
+    // version incrémentée : une modification admin concurrente (save JPA) échoue au lieu d'écraser le stock
+    @Modifying
+    @Query("update Vol v set v.placesDisponibles = v.placesDisponibles - :n, v.version = v.version + 1 where v.id = :id and v.placesDisponibles >= :n")
+    int reservePlaces(@Param("id") Long id, @Param("n") int n);
 
+    @Modifying
+    @Query("update Vol v set v.placesDisponibles = v.placesDisponibles + :n, v.version = v.version + 1 where v.id = :id")
+    int releasePlaces(@Param("id") Long id, @Param("n") int n);
+}
@@ -0,0 +1,151 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.AdminReservationStatsResponse;
+import com.example.reservations_voyages.user.repo.AdminStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdminReservationStatsServiceTest {
+
+    private static final long TTL_MS = 60_000;
+    private static final long LIVE_TTL_MS = 500;
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate FROM = TODAY.minusDays(40);
+    private static final LocalDate TO = TODAY.minusDays(10);
+
+    private final AdminStatsRepository repo = mock(AdminStatsRepository.class);
+    // tops vides : seule la requête dashboard est comptée
+    private final ReservationTopKIndex topK = new ReservationTopKIndex(mock(JdbcTemplate.class), 16);
+    private final AtomicInteger computations = new AtomicInteger();
+    private AdminReservationStatsService service;
+
+    @BeforeEach
+    void dashboard() {
+        // totalCount = n° du calcul : une réponse servie du cache garde l'ancien numéro
+        when(repo.dashboard(any(), any())).thenAnswer(inv -> {
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{"TOTAL", null, computations.incrementAndGet(), 0, 0, 0, 0, 0, BigDecimal.ZERO});
+            return rows;
+        });
+        service = new AdminReservationStatsService(repo, topK, 2, TTL_MS, LIVE_TTL_MS, 16);
+    }
+
+    @AfterEach
+    void stop() {
+        service.shutdown();
+    }
+
+    private long stats(LocalDate from, LocalDate to) {
+        return service.stats(from, to).getTotalCount();
+    }
+
+    @Test
+    void pastRangeIsCachedUntilOneOfItsDaysChanges() {
+        assertThat(stats(FROM, TO)).isEqualTo(1);
+        assertThat(stats(FROM, TO)).isEqualTo(1);
+
+        // jours hors de la période : rien n'est vidé
+        service.invalidate(Set.of(FROM.minusDays(1), TO.plusDays(1)));
+        assertThat(stats(FROM, TO)).isEqualTo(1);
+
+        // bornes incluses
+        service.invalidate(Set.of(TO));
+        assertThat(stats(FROM, TO)).isEqualTo(2);
+        service.invalidate(Set.of(FROM));
+        assertThat(stats(FROM, TO)).isEqualTo(3);
+
+        // seules les périodes qui contiennent le jour sont vidées
+        assertThat(stats(TO.plusDays(1), TO.plusDays(5))).isEqualTo(4);
+        service.invalidate(List.of(TO.plusDays(3)));
+        assertThat(stats(FROM, TO)).isEqualTo(3);
+        assertThat(stats(TO.plusDays(1), TO.plusDays(5))).isEqualTo(5);
+    }
+
+    @Test
+    void liveRangeIgnoresInvalidationAndExpiresOnItsShortTtl() throws InterruptedException {
+        LocalDate from = TODAY.minusDays(7);
+
+        assertThat(stats(from, TODAY)).isEqualTo(1);
+        service.invalidate(Set.of(TODAY));
+        assertThat(stats(from, TODAY)).isEqualTo(1);
+
+        Thread.sleep(LIVE_TTL_MS + 100);
+        assertThat(stats(from, TODAY)).isEqualTo(2);
+        // une période passée n'expire pas sur le TTL court
+        assertThat(stats(FROM, TO)).isEqualTo(3);
+        Thread.sleep(LIVE_TTL_MS + 100);
+        assertThat(stats(FROM, TO)).isEqualTo(3);
+    }
+
+    @Test
+    void invalidateAllDropsEveryRange() {
+        stats(FROM, TO);
+        stats(TODAY.minusDays(7), TODAY);
+
+        service.invalidateAll();
+
+        assertThat(stats(FROM, TO)).isEqualTo(3);
+        assertThat(stats(TODAY.minusDays(7), TODAY)).isEqualTo(4);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        when(repo.dashboard(any(), any()))
+                .thenThrow(new IllegalStateException("base indisponible"))
+                .thenAnswer(inv -> {
+                    List<Object[]> rows = new ArrayList<>();
+                    rows.add(new Object[]{"TOTAL", null, 42, 0, 0, 0, 0, 0, BigDecimal.ZERO});
+                    return rows;
+                });
+
+        assertThatThrownBy(() -> stats(FROM, TO)).isInstanceOf(IllegalStateException.class);
+        assertThat(stats(FROM, TO)).isEqualTo(42);
+    }
+
+    @Test
+    void concurrentRequestsShareOneComputation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{"TOTAL", null, computations.incrementAndGet(), 0, 0, 0, 0, 0, BigDecimal.ZERO});
+            return rows;
+        }).when(repo).dashboard(any(), any());
+
+        ExecutorService admins = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<AdminReservationStatsResponse>> replies = new ArrayList<>();
+            for (int i = 0; i < 6; i++) replies.add(admins.submit(() -> service.stats(FROM, TO)));
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<AdminReservationStatsResponse> f : replies) {
+                assertThat(f.get(5, TimeUnit.SECONDS).getTotalCount()).isEqualTo(1);
+            }
+        } finally {
+            admins.shutdown();
+        }
+        assertThat(computations).hasValue(1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.Suggestion;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.example.reservations_voyages.auth.service.AutocompleteIndex.AEROPORT;
+import static com.example.reservations_voyages.auth.service.AutocompleteIndex.PAYS;
+import static com.example.reservations_voyages.auth.service.AutocompleteIndex.VILLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AutocompleteIndexTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    // hors transaction : labelChanged s'applique immédiatement
+    private final AutocompleteIndex index = new AutocompleteIndex(jdbc);
+
+    private void add(String type, String label) {
+        index.labelChanged(type, null, label);
+    }
+
+    private List<String> labels(String prefix, String type) {
+        return index.suggest(prefix, type).stream().map(Suggestion::label).toList();
+    }
+
+    @Test
+    void splitEdgesKeepBothBranches() {
+        add(VILLE, "Marrakech");
+        add(VILLE, "Marseille");   // découpe l'arête "marrakech" en "mar" -> "rakech" / "seille"
+        add(VILLE, "Mar");         // clé qui se termine sur le nœud intermédiaire
+
+        assertThat(labels("mar", null)).containsExactly("Mar", "Marrakech", "Marseille");
+        assertThat(labels("marr", null)).containsExactly("Marrakech");
+        assertThat(labels("mars", null)).containsExactly("Marseille");
+        assertThat(labels("marx", null)).isEmpty();
+        assertThat(labels("m", null)).hasSize(3);
+    }
+
+    @Test
+    void everyWordIsAKeyAccentsAndCaseIgnored() {
+        add(AEROPORT, "Paris Charles-de-Gaulle");
+        add(VILLE, "Fès");
+
+        assertThat(labels("gau", null)).containsExactly("Paris Charles-de-Gaulle");
+        assertThat(labels("CHARLES DE", null)).containsExactly("Paris Charles-de-Gaulle");
+        assertThat(labels("fes", null)).containsExactly("Fès");
+        assertThat(labels("  ", null)).isEmpty();
+    }
+
+    @Test
+    void removalPrunesAndKeepsSharedLabels() {
+        add(VILLE, "Marrakech");
+        add(VILLE, "Marseille");
+        add(VILLE, "Marseille");   // deux hôtels
+
+        index.labelChanged(VILLE, "Marseille", null);
+        assertThat(labels("mars", null)).containsExactly("Marseille");
+
+        index.labelChanged(VILLE, "Marseille", "Marbella");
+        assertThat(labels("mars", null)).isEmpty();
+        assertThat(labels("mar", null)).containsExactly("Marbella", "Marrakech");
+
+        index.labelChanged(VILLE, "Marrakech", null);
+        index.labelChanged(VILLE, "Marbella", null);
+        assertThat(labels("m", null)).isEmpty();
+    }
+
+    @Test
+    void typeFilter() {
+        add(VILLE, "Maroc City");
+        add(PAYS, "Maroc");
+        add(AEROPORT, "Marrakech Menara");
+
+        assertThat(labels("maro", PAYS)).containsExactly("Maroc");
+        assertThat(labels("maro", VILLE)).containsExactly("Maroc City");
+        assertThat(labels("mar", AEROPORT)).containsExactly("Marrakech Menara");
+        assertThat(labels("mar", null)).hasSize(3);
+    }
+
+    @Test
+    void rankingRefsThenLabelLimitedToTopK() {
+        IntStream.rangeClosed(1, 12).forEach(i -> add(VILLE, "Ville %02d".formatted(i)));
+        add(VILLE, "Ville 12");    // deux références : devant les autres
+
+        assertThat(labels("vil", null)).containsExactly(
+                "Ville 12", "Ville 01", "Ville 02", "Ville 03", "Ville 04",
+                "Ville 05", "Ville 06", "Ville 07", "Ville 08", "Ville 09");
+
+        // le retrait de références fait redescendre "Ville 12" et remonter "Ville 10"
+        index.labelChanged(VILLE, "Ville 12", null);
+        assertThat(labels("vil", null)).endsWith("Ville 10");
+    }
+
+    @Test
+    void rebuildLoadsPopularityAndReplacesIndex() throws Exception {
+        add(VILLE, "Agadir");
+
+        doAnswer(inv -> {
+            RowCallbackHandler h = inv.getArgument(1);
+            h.processRow(row("Casablanca Mohammed V", 4, 10));
+            h.processRow(row("Casablanca Anfa", 1, 50));
+            h.processRow(row("Casablanca Ancien", 0, 3));   // plus utilisé par aucun vol
+            return null;
+        }).when(jdbc).query(contains("aeroport_depart"), any(RowCallbackHandler.class));
+
+        index.rebuild();
+
+        assertThat(index.suggest("casa", null)).containsExactly(
+                new Suggestion(AEROPORT, "Casablanca Anfa", 50),
+                new Suggestion(AEROPORT, "Casablanca Mohammed V", 10));
+        assertThat(labels("aga", null)).isEmpty();
+
+        // la popularité est conservée lors des mises à jour incrémentales
+        index.labelChanged(AEROPORT, null, "Casablanca Anfa");
+        assertThat(index.suggest("anfa", null)).containsExactly(new Suggestion(AEROPORT, "Casablanca Anfa", 50));
+    }
+
+    private static ResultSet row(String label, long refs, long res) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(label);
+        when(rs.getLong(2)).thenReturn(refs);
+        when(rs.getLong(3)).thenReturn(res);
+        return rs;
+    }
+}
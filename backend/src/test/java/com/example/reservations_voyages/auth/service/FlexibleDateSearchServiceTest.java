@@ -0,0 +1,133 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.FlexibleFareCell;
+import com.example.reservations_voyages.auth.dto.FlexibleFareMatrix;
+import com.example.reservations_voyages.user.entity.Vol;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class FlexibleDateSearchServiceTest {
+
+    private static final LocalDate D = LocalDate.of(2026, 6, 10);
+
+    // index réel alimenté hors transaction (mises à jour immédiates)
+    private final VolRouteIndex routeIndex = new VolRouteIndex(mock(JdbcTemplate.class));
+    private final FlexibleDateSearchService service = new FlexibleDateSearchService(routeIndex);
+    private final List<Vol> vols = new ArrayList<>();
+
+    private void vol(long id, String from, String to, LocalDateTime depart, String prix, int places) {
+        Vol v = new Vol();
+        v.setId(id);
+        v.setAeroportDepart(from);
+        v.setAeroportArrivee(to);
+        v.setDateHeureDepart(depart);
+        v.setDateHeureArrivee(depart.plusHours(3));
+        v.setPrixBase(new BigDecimal(prix));
+        v.setPlacesDisponibles(places);
+        v.setStatut("DISPONIBLE");
+        vols.add(v);
+        routeIndex.volSaved(v);
+    }
+
+    private static FlexibleFareCell cell(long aller, Long retour, String total) {
+        return new FlexibleFareCell(aller, retour, new BigDecimal(total));
+    }
+
+    @Test
+    void sameDayReturnMustLeaveAfterTheOutbound() {
+        vol(1, "CMN", "CDG", D.atTime(8, 0), "100.00", 9);
+        vol(2, "CMN", "CDG", D.atTime(14, 0), "50.00", 9);
+        vol(11, "CDG", "CMN", D.atTime(7, 0), "10.00", 9);    // avant tout aller : jamais appairé
+        vol(12, "CDG", "CMN", D.atTime(12, 0), "80.00", 9);   // seulement après l'aller de 8h
+        vol(13, "CDG", "CMN", D.atTime(14, 0), "5.00", 9);    // même heure que l'aller de 14h : exclu
+        vol(14, "CDG", "CMN", D.atTime(18, 0), "70.00", 9);
+
+        FlexibleFareMatrix m = service.search("CMN", "CDG", D, D, 0, 2);
+
+        // 8h -> min(80, 5, 70) = 5 ; 14h -> 70 : (100 + 5) x 2 < (50 + 70) x 2
+        assertThat(m.cells()).containsExactly(List.of(cell(1, 13L, "210.00")));
+        assertThat(m.cheapest()).isEqualTo(cell(1, 13L, "210.00"));
+    }
+
+    @Test
+    void sameDayWithoutALaterReturnIsEmpty() {
+        vol(1, "CMN", "CDG", D.atTime(20, 0), "100.00", 9);
+        vol(11, "CDG", "CMN", D.atTime(6, 0), "10.00", 9);
+        vol(12, "CDG", "CMN", D.atTime(20, 0), "10.00", 9);
+
+        FlexibleFareMatrix m = service.search("CMN", "CDG", D, D, 0, 1);
+
+        assertThat(m.cells()).hasSize(1);
+        assertThat(m.cells().get(0)).containsOnlyNulls();
+        assertThat(m.cheapest()).isNull();
+    }
+
+    @Test
+    void matrixMatchesAllValidPairs() {
+        Random random = new Random(7);
+        long id = 1;
+        for (int d = -4; d <= 4; d++) {
+            for (int k = 0; k < 4; k++) {
+                vol(id++, "CMN", "CDG", D.plusDays(d).atTime(random.nextInt(24), 0), (40 + random.nextInt(200)) + ".00",
+                        random.nextInt(4));
+                vol(id++, "CDG", "CMN", D.plusDays(d).atTime(random.nextInt(24), 0), (40 + random.nextInt(200)) + ".00",
+                        random.nextInt(4));
+            }
+        }
+
+        FlexibleFareMatrix m = service.search("CMN", "CDG", D.minusDays(1), D, 3, 2);
+
+        BigDecimal cheapest = null;
+        for (int i = 0; i < m.datesAller().size(); i++) {
+            for (int j = 0; j < m.datesRetour().size(); j++) {
+                BigDecimal expected = bestPair(m.datesAller().get(i), m.datesRetour().get(j), 2);
+                FlexibleFareCell c = m.cells().get(i).get(j);
+                String at = m.datesAller().get(i) + " / " + m.datesRetour().get(j);
+                if (expected == null) {
+                    assertThat(c).as(at).isNull();
+                } else {
+                    assertThat(c).as(at).isNotNull();
+                    assertThat(c.totalPrice()).as(at).isEqualByComparingTo(expected);
+                    assertThat(total(c, 2)).as(at).isEqualByComparingTo(expected);
+                    if (cheapest == null || expected.compareTo(cheapest) < 0) cheapest = expected;
+                }
+            }
+        }
+        assertThat(m.cheapest().totalPrice()).isEqualByComparingTo(cheapest);
+    }
+
+    // force brute : toutes les paires (aller du jour, retour du jour) avec les places, retour parti après l'aller
+    private BigDecimal bestPair(LocalDate jourAller, LocalDate jourRetour, int nbPlaces) {
+        BigDecimal best = null;
+        for (Vol a : vols) {
+            if (!a.getAeroportDepart().equals("CMN") || !a.getDateHeureDepart().toLocalDate().equals(jourAller)
+                    || a.getPlacesDisponibles() < nbPlaces) continue;
+            for (Vol r : vols) {
+                if (!r.getAeroportDepart().equals("CDG") || !r.getDateHeureDepart().toLocalDate().equals(jourRetour)
+                        || r.getPlacesDisponibles() < nbPlaces
+                        || !r.getDateHeureDepart().isAfter(a.getDateHeureDepart())) continue;
+                BigDecimal t = a.getPrixBase().add(r.getPrixBase()).multiply(BigDecimal.valueOf(nbPlaces));
+                if (best == null || t.compareTo(best) < 0) best = t;
+            }
+        }
+        return best;
+    }
+
+    // la cellule désigne bien une paire de vols valide à ce prix
+    private BigDecimal total(FlexibleFareCell c, int nbPlaces) {
+        Vol a = vols.stream().filter(v -> v.getId().equals(c.volId())).findFirst().orElseThrow();
+        Vol r = vols.stream().filter(v -> v.getId().equals(c.volRetourId())).findFirst().orElseThrow();
+        assertThat(r.getDateHeureDepart()).isAfter(a.getDateHeureDepart());
+        return a.getPrixBase().add(r.getPrixBase()).multiply(BigDecimal.valueOf(nbPlaces));
+    }
+}
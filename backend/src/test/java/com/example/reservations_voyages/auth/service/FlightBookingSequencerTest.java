@@ -0,0 +1,155 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.ReservationResponse;
+import com.example.reservations_voyages.auth.dto.ReserveVolRequest;
+import com.example.reservations_voyages.auth.service.ClientReservationService.BatchOutcome;
+import com.example.reservations_voyages.common.exception.ConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FlightBookingSequencerTest {
+
+    private final ClientReservationService reservationService = mock(ClientReservationService.class);
+    private final SeatInventoryEngine seatEngine = mock(SeatInventoryEngine.class);
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+    private FlightBookingSequencer sequencer;
+
+    @AfterEach
+    void stop() {
+        callers.shutdownNow();
+        if (sequencer != null) sequencer.shutdown();
+    }
+
+    private FlightBookingSequencer sequencer(long replyTimeoutMs) {
+        sequencer = new FlightBookingSequencer(reservationService, new OptimisticRetry(1, 1, 1), seatEngine,
+                true, 200, 4, replyTimeoutMs);
+        return sequencer;
+    }
+
+    // réponse portant l'email de l'appelant : chacun doit recevoir la sienne
+    private static List<BatchOutcome> outcomes(Long volId, List<String> emails) {
+        return emails.stream()
+                .map(e -> new BatchOutcome(new ReservationResponse(null, "VOL", null, null, null,
+                        volId, e, 1, null, null, null, null, null, null, null), null))
+                .toList();
+    }
+
+    // les boîtes sont retirées juste après la réponse du dernier lot
+    private void awaitNoMailbox() throws InterruptedException {
+        for (int i = 0; i < 200 && sequencer.activeMailboxes() > 0; i++) Thread.sleep(5);
+        assertThat(sequencer.activeMailboxes()).isZero();
+    }
+
+    @Test
+    void oneBatchAtATimePerFlight() throws Exception {
+        FlightBookingSequencer seq = sequencer(5_000);
+        Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        when(reservationService.reserveVolBatch(anyLong(), anyList(), anyList())).thenAnswer(inv -> {
+            Long volId = inv.getArgument(0);
+            List<String> emails = inv.getArgument(1);
+            AtomicInteger running = inFlight.computeIfAbsent(volId, id -> new AtomicInteger());
+            if (running.incrementAndGet() > 1) overlaps.incrementAndGet();
+            Thread.sleep(2);
+            running.decrementAndGet();
+            booked.addAndGet(emails.size());
+            return outcomes(volId, emails);
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ReservationResponse>> replies = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            String email = "client" + i + "@test";
+            long volId = 1 + i % 3;
+            replies.add(callers.submit(() -> {
+                start.await();
+                return seq.reserveVol(email, new ReserveVolRequest(volId, null, 1));
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < replies.size(); i++) {
+            ReservationResponse r = replies.get(i).get(10, TimeUnit.SECONDS);
+            assertThat(r.volInfo()).isEqualTo("client" + i + "@test");
+            assertThat(r.volId()).isEqualTo(1 + i % 3);
+        }
+        assertThat(overlaps).hasValue(0);
+        assertThat(booked).hasValue(60);
+        awaitNoMailbox();
+    }
+
+    @Test
+    void queuedCommandIsWithdrawnAfterReplyTimeout() throws Exception {
+        FlightBookingSequencer seq = sequencer(100);
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch releaseBatch = new CountDownLatch(1);
+        when(reservationService.reserveVolBatch(anyLong(), anyList(), anyList())).thenAnswer(inv -> {
+            batchStarted.countDown();
+            releaseBatch.await();
+            return outcomes(inv.getArgument(0), inv.getArgument(1));
+        });
+
+        // A est pris par un lot qui dure plus que le délai : il attend quand même son résultat
+        Future<ReservationResponse> a = callers.submit(() -> seq.reserveVol("a@test", new ReserveVolRequest(7L, null, 1)));
+        assertThat(batchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // B reste en file derrière le lot de A : retiré à l'échéance, rien ne sera réservé pour lui
+        assertThatThrownBy(() -> seq.reserveVol("b@test", new ReserveVolRequest(7L, null, 1)))
+                .isInstanceOf(ConflictException.class);
+
+        releaseBatch.countDown();
+        assertThat(a.get(5, TimeUnit.SECONDS).volInfo()).isEqualTo("a@test");
+        awaitNoMailbox();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> emails = ArgumentCaptor.forClass(List.class);
+        verify(reservationService, times(1)).reserveVolBatch(eq(7L), emails.capture(), anyList());
+        assertThat(emails.getValue()).containsExactly("a@test");
+    }
+
+    @Test
+    void batchFailureIsReportedToEveryCommand() {
+        FlightBookingSequencer seq = sequencer(5_000);
+        IllegalStateException down = new IllegalStateException("base indisponible");
+        when(reservationService.reserveVolBatch(anyLong(), anyList(), anyList())).thenThrow(down);
+
+        CompletableFuture<Void> done = CompletableFuture.runAsync(() ->
+                assertThatThrownBy(() -> seq.reserveVol("a@test", new ReserveVolRequest(3L, null, 1))).isSameAs(down),
+                callers);
+        assertThatThrownBy(() -> seq.reserveVol("b@test", new ReserveVolRequest(3L, null, 1))).isSameAs(down);
+        done.join();
+    }
+
+    @Test
+    void inMemorySeatEngineTakesPrecedence() {
+        when(seatEngine.isEnabled()).thenReturn(true);
+
+        assertThat(sequencer(5_000).isEnabled()).isFalse();
+        verify(reservationService, times(0)).reserveVolBatch(any(), anyList(), anyList());
+    }
+}
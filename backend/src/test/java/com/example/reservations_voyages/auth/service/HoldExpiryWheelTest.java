@@ -0,0 +1,75 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.user.repo.ReservationHotelRepository;
+import com.example.reservations_voyages.user.repo.ReservationVolRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HoldExpiryWheelTest {
+
+    // tick = 1 s, lots de 2, nouvel essai 5 ticks après un échec
+    private final HoldExpiryService service = mock(HoldExpiryService.class);
+    private final HoldExpiryWheel wheel = new HoldExpiryWheel(service,
+            mock(ReservationVolRepository.class), mock(ReservationHotelRepository.class), 1000, 2, 5000);
+
+    private void cancelInSeconds(long s) {
+        when(service.cancelAt(any())).thenReturn(LocalDateTime.now().plusSeconds(s));
+    }
+
+    @Test
+    void holdBeyondOneTurnWaitsForItsDeadline() {
+        // 600 ticks > 512 cases : la case est revue au premier tour sans être échue
+        cancelInSeconds(600);
+        wheel.scheduleVol(7L, LocalDateTime.now());
+
+        wheel.advanceTo(590);
+        verify(service, never()).expireVols(anyCollection());
+
+        wheel.advanceTo(605);
+        verify(service).expireVols(List.of(7L));
+    }
+
+    @Test
+    void holdsAreExpiredInBatchesPerType() {
+        cancelInSeconds(2);
+        wheel.scheduleVol(1L, LocalDateTime.now());
+        wheel.scheduleVol(2L, LocalDateTime.now());
+        wheel.scheduleVol(3L, LocalDateTime.now());
+        wheel.scheduleHotel(4L, LocalDateTime.now());
+
+        wheel.advanceTo(5);
+        verify(service, times(2)).expireVols(anyCollection());
+        verify(service).expireHotels(List.of(4L));
+    }
+
+    @Test
+    void failedBatchIsRequeuedAndOtherBatchesStillRun() {
+        cancelInSeconds(2);
+        wheel.scheduleVol(1L, LocalDateTime.now());
+        wheel.scheduleHotel(2L, LocalDateTime.now());
+        when(service.expireVols(anyCollection()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+
+        wheel.advanceTo(4);
+        verify(service, times(1)).expireVols(List.of(1L));
+        verify(service).expireHotels(List.of(2L));
+
+        // replanifié au tick 4 + 5
+        wheel.advanceTo(8);
+        verify(service, times(1)).expireVols(List.of(1L));
+
+        wheel.advanceTo(9);
+        verify(service, times(2)).expireVols(List.of(1L));
+    }
+}
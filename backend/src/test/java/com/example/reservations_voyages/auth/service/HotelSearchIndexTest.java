@@ -0,0 +1,157 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.AvailableHotel;
+import com.example.reservations_voyages.auth.dto.HotelSearchResult;
+import com.example.reservations_voyages.user.entity.Hotel;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HotelSearchIndexTest {
+
+    private static final List<String> VILLES = List.of("Paris", "Lyon", "Nice");
+    private static final List<String> PAYS = List.of("France", "Italie");
+
+    private final HotelStayIndex stayIndex = mock(HotelStayIndex.class);
+    // JdbcTemplate simulé : hors transaction hotelSaved / hotelDeleted sont appliqués immédiatement
+    private final HotelSearchIndex index = new HotelSearchIndex(mock(JdbcTemplate.class), stayIndex);
+
+    private static Hotel hotel(long id, String ville, String pays, int etoiles, String prix, int chambres,
+                               String... equipements) {
+        Hotel h = new Hotel();
+        h.setId(id);
+        h.setNom("Hôtel " + id);
+        h.setVille(ville);
+        h.setPays(pays);
+        h.setEtoiles(etoiles);
+        h.setPrixParNuit(new BigDecimal(prix));
+        h.setChambresTotales(chambres);
+        h.setEquipements(new ArrayList<>(List.of(equipements)));
+        return h;
+    }
+
+    private List<Long> ids(String ville, String pays, Integer etoiles, String min, String max, String... equipements) {
+        return index.search(ville, pays, etoiles, min == null ? null : new BigDecimal(min),
+                        max == null ? null : new BigDecimal(max), List.of(equipements), 100)
+                .stream().map(HotelSearchResult::id).toList();
+    }
+
+    @Test
+    void postingsAreIntersected() {
+        index.hotelSaved(hotel(1, "Paris", "France", 4, "180", 20, "wifi", "spa"));
+        index.hotelSaved(hotel(2, "Paris", "France", 3, "90", 20, "wifi"));
+        index.hotelSaved(hotel(3, "Lyon", "France", 4, "120", 20, "wifi", "spa"));
+        index.hotelSaved(hotel(4, "Paris", "France", 4, "150", 20, "parking"));
+
+        assertThat(ids("Paris", null, null, null, null)).containsExactly(2L, 4L, 1L);   // prix croissant
+        assertThat(ids("Paris", "France", 4, null, null)).containsExactly(4L, 1L);
+        assertThat(ids(null, null, 4, null, null, "wifi", "spa")).containsExactly(3L, 1L);
+        assertThat(ids("Paris", null, 4, null, null, "spa")).containsExactly(1L);
+        assertThat(ids(null, "France", null, "100", "160")).containsExactly(3L, 4L);
+
+        // posting absent, étoiles hors bornes, équipement inconnu : aucun résultat
+        assertThat(ids("Marseille", null, null, null, null)).isEmpty();
+        assertThat(ids("Paris", "Italie", null, null, null)).isEmpty();
+        assertThat(ids(null, null, 6, null, null)).isEmpty();
+        assertThat(ids(null, null, null, null, null, "wifi", "piscine")).isEmpty();
+    }
+
+    @Test
+    void criteriaAreNormalized() {
+        index.hotelSaved(hotel(1, "Paris", "France", 4, "180", 20, "Wi-Fi", "Spa"));
+
+        assertThat(ids("  paris ", "FRANCE", 4, null, null, "wi-fi", " SPA")).containsExactly(1L);
+    }
+
+    @Test
+    void amenitiesBeyondTheFirstMaskWord() {
+        // 70 équipements distincts : les bits 64+ sont dans le second mot du masque
+        String[] many = IntStream.range(0, 70).mapToObj(i -> "eq" + i).toArray(String[]::new);
+        index.hotelSaved(hotel(1, "Paris", "France", 4, "180", 20, many));
+        index.hotelSaved(hotel(2, "Paris", "France", 4, "150", 20, "eq0", "eq69"));
+        index.hotelSaved(hotel(3, "Paris", "France", 4, "100", 20, "eq0"));
+
+        assertThat(ids(null, null, null, null, null, "eq69")).containsExactly(2L, 1L);
+        assertThat(ids(null, null, null, null, null, "eq0", "eq65")).containsExactly(1L);
+        assertThat(ids(null, null, null, null, null, "eq0")).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void sameResultsAsAFullScan() {
+        List<String> equipements = List.of("wifi", "spa", "parking", "piscine", "clim");
+        Random random = new Random(42);
+        List<Hotel> hotels = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            String[] eqs = equipements.stream().filter(e -> random.nextInt(3) == 0).toArray(String[]::new);
+            Hotel h = hotel(id, VILLES.get(random.nextInt(3)), PAYS.get(random.nextInt(2)), 1 + random.nextInt(5),
+                    String.valueOf(50 + random.nextInt(300)), 10, eqs);
+            hotels.add(h);
+            index.hotelSaved(h);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            String ville = random.nextBoolean() ? VILLES.get(random.nextInt(3)) : null;
+            String pays = random.nextBoolean() ? PAYS.get(random.nextInt(2)) : null;
+            Integer etoiles = random.nextBoolean() ? 1 + random.nextInt(5) : null;
+            BigDecimal max = random.nextBoolean() ? BigDecimal.valueOf(100 + random.nextInt(250)) : null;
+            List<String> required = equipements.stream().filter(e -> random.nextInt(4) == 0).toList();
+
+            List<Long> expected = hotels.stream()
+                    .filter(h -> ville == null || h.getVille().equals(ville))
+                    .filter(h -> pays == null || h.getPays().equals(pays))
+                    .filter(h -> etoiles == null || h.getEtoiles() == etoiles)
+                    .filter(h -> max == null || h.getPrixParNuit().compareTo(max) <= 0)
+                    .filter(h -> h.getEquipements().containsAll(required))
+                    .sorted(Comparator.comparing(Hotel::getPrixParNuit).thenComparing(Hotel::getId))
+                    .map(Hotel::getId)
+                    .limit(20)
+                    .toList();
+            assertThat(index.search(ville, pays, etoiles, null, max, required, 20))
+                    .extracting(HotelSearchResult::id)
+                    .as("%s %s %s %s %s", ville, pays, etoiles, max, required)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void updatesReplaceTheHotelInEveryPosting() {
+        index.hotelSaved(hotel(1, "Paris", "France", 4, "180", 20, "wifi"));
+        index.hotelSaved(hotel(1, "Lyon", "France", 3, "120", 20, "spa"));
+
+        assertThat(ids("Paris", null, null, null, null)).isEmpty();
+        assertThat(ids(null, null, 4, null, null)).isEmpty();
+        assertThat(ids("Lyon", null, 3, null, null, "spa")).containsExactly(1L);
+
+        index.hotelDeleted(1L);
+        assertThat(ids(null, "France", null, null, null)).isEmpty();
+    }
+
+    @Test
+    void availabilityUsesThePeakOfTheStay() {
+        LocalDate in = LocalDate.of(2026, 7, 1);
+        LocalDate out = in.plusDays(3);
+        index.hotelSaved(hotel(1, "Paris", "France", 4, "180", 10));
+        index.hotelSaved(hotel(2, "Paris", "France", 3, "90", 10));
+        index.hotelSaved(hotel(3, "Paris", "France", 3, "60", 2));
+        when(stayIndex.peakBooked(eq(1L), any(), any())).thenReturn(4);
+        when(stayIndex.peakBooked(eq(2L), any(), any())).thenReturn(9);
+
+        assertThat(index.available("Paris", in, out, 3, 10))
+                .extracting(AvailableHotel::id, AvailableHotel::roomsAvailable)
+                .containsExactly(tuple(1L, 6));
+    }
+}
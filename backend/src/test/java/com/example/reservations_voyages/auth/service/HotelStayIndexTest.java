@@ -0,0 +1,81 @@
+package com.example.reservations_voyages.auth.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class HotelStayIndexTest {
+
+    private static final Long HOTEL = 7L;
+    private static final LocalDate D = LocalDate.of(2026, 7, 1);
+
+    // JdbcTemplate simulé : rebuild() lit une table vide ; hors transaction les mises à jour sont immédiates
+    private final HotelStayIndex index = new HotelStayIndex(mock(JdbcTemplate.class));
+
+    private static LocalDate day(int n) {
+        return D.plusDays(n);
+    }
+
+    private int peak(int from, int to) {
+        return index.peakBooked(HOTEL, day(from), day(to));
+    }
+
+    @Test
+    void peakIsTheBusiestNightOfTheWindow() {
+        index.stayBooked(HOTEL, day(0), day(3), 2);   // nuits 0, 1, 2
+        index.stayBooked(HOTEL, day(2), day(5), 3);   // nuits 2, 3, 4
+        index.stayBooked(HOTEL, day(4), day(6), 1);   // nuits 4, 5
+
+        assertThat(peak(0, 2)).isEqualTo(2);
+        assertThat(peak(0, 6)).isEqualTo(5);   // nuit 2
+        assertThat(peak(3, 6)).isEqualTo(4);   // nuit 4
+        assertThat(peak(5, 6)).isEqualTo(1);
+        assertThat(peak(6, 9)).isZero();
+    }
+
+    @Test
+    void checkOutDayIsFree() {
+        index.stayBooked(HOTEL, day(0), day(2), 4);
+
+        assertThat(peak(2, 4)).isZero();       // arrivée le jour du départ
+        assertThat(peak(1, 2)).isEqualTo(4);
+        assertThat(peak(-3, 0)).isZero();      // départ le jour de l'arrivée
+        assertThat(peak(-3, 1)).isEqualTo(4);
+    }
+
+    @Test
+    void windowStartingInsideAStayCountsIt() {
+        index.stayBooked(HOTEL, day(0), day(10), 2);
+        index.stayBooked(HOTEL, day(3), day(4), 1);
+
+        assertThat(peak(5, 7)).isEqualTo(2);
+        assertThat(peak(3, 7)).isEqualTo(3);
+    }
+
+    @Test
+    void releaseAndDeletion() {
+        index.stayBooked(HOTEL, day(0), day(3), 2);
+        index.stayBooked(HOTEL, day(1), day(2), 1);
+        index.stayBooked(8L, day(0), day(3), 5);
+
+        index.stayReleased(HOTEL, day(1), day(2), 1);
+        assertThat(peak(0, 3)).isEqualTo(2);
+        index.stayReleased(HOTEL, day(0), day(3), 2);
+        assertThat(peak(0, 3)).isZero();
+
+        index.hotelDeleted(8L);
+        assertThat(index.peakBooked(8L, day(0), day(3))).isZero();
+        assertThat(index.peakBooked(99L, day(0), day(3))).isZero();
+    }
+
+    @Test
+    void rebuildReplacesTheIndex() {
+        index.stayBooked(HOTEL, day(0), day(3), 2);
+        index.rebuild();
+        assertThat(peak(0, 3)).isZero();
+    }
+}
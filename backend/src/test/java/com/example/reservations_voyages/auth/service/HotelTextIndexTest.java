@@ -0,0 +1,84 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.HotelTextMatch;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.user.entity.Hotel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class HotelTextIndexTest {
+
+    // JdbcTemplate simulé : rebuild() lit une table vide
+    private final HotelTextIndex index = new HotelTextIndex(mock(JdbcTemplate.class));
+
+    private void hotel(long id, String nom, String ville, String adresse, String description) {
+        Hotel h = new Hotel();
+        h.setId(id);
+        h.setNom(nom);
+        h.setVille(ville);
+        h.setPays("Maroc");
+        h.setAdresse(adresse);
+        h.setDescription(description);
+        index.hotelSaved(h);
+    }
+
+    @BeforeEach
+    void hotels() {
+        hotel(1, "Riad Atlas", "Marrakech", "12 derb Lalla", "Riad traditionnel avec patio");
+        hotel(2, "Hôtel Océan", "Agadir", "Boulevard du 20 août", "Vue sur la mer, piscine");
+        hotel(3, "Kasbah du Désert", "Merzouga", "Route des dunes", "Nuit sous tente près de Marrakech");
+    }
+
+    private List<Long> ids(String q) {
+        return index.search(q, 10).stream().map(HotelTextMatch::id).toList();
+    }
+
+    @Test
+    void exactWordsMatchWithAccentsAndCaseIgnored() {
+        assertThat(ids("ocean")).containsExactly(2L);
+        assertThat(ids("DÉSERT")).containsExactly(3L);
+    }
+
+    @Test
+    void typosStillFindTheHotel() {
+        assertThat(ids("marakech")).first().isEqualTo(1L);   // lettre manquante
+        assertThat(ids("Agadri")).containsExactly(2L);        // lettres inversées
+        assertThat(ids("kasbha dessert")).first().isEqualTo(3L);
+    }
+
+    @Test
+    void strongerFieldsRankFirst() {
+        // "Marrakech" : ville de l'hôtel 1, simple mention dans la description de l'hôtel 3
+        List<HotelTextMatch> res = index.search("marrakech", 10);
+        assertThat(res).extracting(HotelTextMatch::id).containsExactly(1L, 3L);
+        assertThat(res.get(0).score()).isGreaterThan(res.get(1).score());
+        assertThat(res.get(0).score()).isLessThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void unrelatedQueryAndLimit() {
+        assertThat(ids("zzzz qqqq")).isEmpty();
+        assertThat(index.search("marrakech", 1)).extracting(HotelTextMatch::id).containsExactly(1L);
+        assertThatThrownBy(() -> index.search(" ", 10)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void updatesDeletesAndRebuild() {
+        hotel(2, "Hôtel Sahara", "Agadir", "Boulevard du 20 août", "Piscine");
+        assertThat(ids("ocean")).isEmpty();
+        assertThat(ids("sahara")).containsExactly(2L);
+
+        index.hotelDeleted(2L);
+        assertThat(ids("sahara")).isEmpty();
+
+        index.rebuild();
+        assertThat(ids("riad")).isEmpty();
+    }
+}
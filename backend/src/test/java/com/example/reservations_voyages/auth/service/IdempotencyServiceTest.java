@@ -0,0 +1,180 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.ReserveVolRequest;
+import com.example.reservations_voyages.common.exception.ConflictException;
+import com.example.reservations_voyages.user.entity.IdempotencyKey;
+import com.example.reservations_voyages.user.repo.IdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyServiceTest {
+
+    private static final String EMAIL = "client@test";
+    private static final String SCOPE = "POST /api/client/reservations/vols";
+    private static final ReserveVolRequest BODY = new ReserveVolRequest(1L, null, 2);
+
+    record Reply(long id, String status) {}
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    // table idempotency_keys en mémoire, mêmes règles que les requêtes du repository
+    private final Map<String, IdempotencyKey> table = new ConcurrentHashMap<>();
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private IdempotencyService service() {
+        return new IdempotencyService(repository, objectMapper, 24, 60, 100);
+    }
+
+    @BeforeEach
+    void table() {
+        doAnswer(inv -> {
+            IdempotencyKey k = new IdempotencyKey();
+            k.setUserEmail(inv.getArgument(0));
+            k.setIdemKey(inv.getArgument(1));
+            k.setScope(inv.getArgument(2));
+            k.setRequestHash(inv.getArgument(3));
+            k.setCreatedAt(inv.getArgument(4));
+            return table.putIfAbsent(k.getIdemKey(), k) == null ? 1 : 0;
+        }).when(repository).tryInsert(anyString(), anyString(), anyString(), anyString(), any());
+        doAnswer(inv -> Optional.ofNullable(table.get(inv.<String>getArgument(1))))
+                .when(repository).findByUserEmailAndIdemKey(anyString(), anyString());
+        doAnswer(inv -> {
+            IdempotencyKey k = table.get(inv.<String>getArgument(1));
+            k.setCompleted(true);
+            k.setResponseBody(inv.getArgument(2));
+            return 1;
+        }).when(repository).complete(anyString(), anyString(), anyString());
+        doAnswer(inv -> table.remove(inv.<String>getArgument(1)) != null ? 1 : 0)
+                .when(repository).release(anyString(), anyString());
+        doAnswer(inv -> {
+            Instant completedBefore = inv.getArgument(2);
+            Instant staleBefore = inv.getArgument(3);
+            boolean removed = table.computeIfPresent(inv.<String>getArgument(1), (key, k) ->
+                    k.getCreatedAt().isBefore(k.isCompleted() ? completedBefore : staleBefore) ? null : k) == null;
+            return removed ? 1 : 0;
+        }).when(repository).purgeIfExpired(anyString(), anyString(), any(), any());
+    }
+
+    private Reply book(IdempotencyService service, String key, ReserveVolRequest body) {
+        return service.execute(key, EMAIL, SCOPE, body, Reply.class,
+                () -> new Reply(executions.incrementAndGet(), "PENDING_PAYMENT"));
+    }
+
+    // ligne "en cours" laissée par une instance tombée pendant le traitement (empreinte null : seul
+    // l'endpoint est comparé)
+    private void abandoned(String key, Instant createdAt) {
+        IdempotencyKey k = new IdempotencyKey();
+        k.setUserEmail(EMAIL);
+        k.setIdemKey(key);
+        k.setScope(SCOPE);
+        k.setCreatedAt(createdAt);
+        table.put(key, k);
+    }
+
+    @Test
+    void sameKeyAndBodyReplaysTheStoredResponse() {
+        IdempotencyService service = service();
+        Reply first = book(service, "k1", BODY);
+
+        assertThat(book(service, "k1", new ReserveVolRequest(1L, null, 2))).isEqualTo(first);
+        // autre instance (cache vide) : réponse relue en base
+        assertThat(book(service(), "k1", BODY)).isEqualTo(first);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void sameKeyWithAnotherBodyIsRejected() {
+        IdempotencyService service = service();
+        book(service, "k1", BODY);
+
+        assertThatThrownBy(() -> book(service, "k1", new ReserveVolRequest(1L, null, 3)))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("autre requête");
+        assertThatThrownBy(() -> book(service(), "k1", new ReserveVolRequest(2L, null, 2)))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("autre requête");
+        assertThatThrownBy(() -> service.execute("k1", EMAIL, "POST /api/client/reservations/hotels", BODY,
+                Reply.class, () -> new Reply(0, "X")))
+                .isInstanceOf(ConflictException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void duplicateWhileInFlightIsRejected() throws Exception {
+        IdempotencyService service = service();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Reply> first = CompletableFuture.supplyAsync(() ->
+                service.execute("k1", EMAIL, SCOPE, BODY, Reply.class, () -> {
+                    started.countDown();
+                    await(finish);
+                    return new Reply(executions.incrementAndGet(), "PENDING_PAYMENT");
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // même instance : marqueur en mémoire ; autre instance : ligne "en cours" en base
+        assertThatThrownBy(() -> book(service, "k1", BODY))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("déjà en cours");
+        assertThatThrownBy(() -> book(service(), "k1", BODY))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("déjà en cours");
+
+        finish.countDown();
+        Reply reply = first.get(5, TimeUnit.SECONDS);
+        assertThat(book(service, "k1", BODY)).isEqualTo(reply);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void staleInFlightRecordIsTakenOverAfterSixtySeconds() {
+        IdempotencyService service = service();
+
+        abandoned("recent", Instant.now().minusSeconds(30));
+        assertThatThrownBy(() -> book(service, "recent", BODY))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("déjà en cours");
+
+        abandoned("stale", Instant.now().minusSeconds(61));
+        Reply reply = book(service, "stale", BODY);
+        assertThat(reply.id()).isEqualTo(1);
+        assertThat(table.get("stale").isCompleted()).isTrue();
+    }
+
+    @Test
+    void failedActionReleasesTheKey() {
+        IdempotencyService service = service();
+        assertThatThrownBy(() -> service.execute("k1", EMAIL, SCOPE, BODY, Reply.class, () -> {
+            throw new ConflictException("plus de places");
+        })).isInstanceOf(ConflictException.class);
+
+        assertThat(table).doesNotContainKey("k1");
+        assertThat(book(service, "k1", BODY).id()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
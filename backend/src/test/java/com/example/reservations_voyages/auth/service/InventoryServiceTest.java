@@ -0,0 +1,87 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.user.entity.ReservationVol;
+import com.example.reservations_voyages.user.entity.Vol;
+import com.example.reservations_voyages.user.repo.HotelNightRepository;
+import com.example.reservations_voyages.user.repo.ReservationVolRepository;
+import com.example.reservations_voyages.user.repo.VolRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTest {
+
+    private final VolRepository volRepository = mock(VolRepository.class);
+    // moteur mémoire désactivé (mock) : UPDATE conditionnels en base
+    private final InventoryService inventory = new InventoryService(volRepository,
+            mock(ReservationVolRepository.class), mock(HotelNightRepository.class),
+            mock(SeatInventoryEngine.class), mock(VolRouteIndex.class), mock(HotelStayIndex.class));
+
+    @BeforeEach
+    void seatsAvailable() {
+        when(volRepository.reservePlaces(anyLong(), anyInt())).thenReturn(1);
+    }
+
+    private static ReservationVol booking(long volId, Long retourId, int places) {
+        ReservationVol r = new ReservationVol();
+        r.setVol(vol(volId));
+        if (retourId != null) r.setVolRetour(vol(retourId));
+        r.setNbPlaces(places);
+        return r;
+    }
+
+    private static Vol vol(long id) {
+        Vol v = new Vol();
+        v.setId(id);
+        return v;
+    }
+
+    @Test
+    void tripSumsDemandPerFlightAndLocksInIdOrder() {
+        inventory.reserveVols(List.of(booking(30, 10L, 2), booking(20, null, 1), booking(10, 30L, 3)));
+
+        InOrder order = inOrder(volRepository);
+        order.verify(volRepository).reservePlaces(10L, 5);
+        order.verify(volRepository).reservePlaces(20L, 1);
+        order.verify(volRepository).reservePlaces(30L, 5);
+        order.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void singleRoundTripLocksLowerIdFirst() {
+        // Y -> X (retour d'id plus petit) : même ordre qu'un voyage ou qu'un X -> Y concurrent
+        inventory.reserveVol(booking(8, 3L, 2));
+
+        InOrder order = inOrder(volRepository);
+        order.verify(volRepository).reservePlaces(3L, 2);
+        order.verify(volRepository).reservePlaces(8L, 2);
+    }
+
+    @Test
+    void shortageStopsAtTheFirstMissingFlight() {
+        when(volRepository.reservePlaces(eq(3L), anyInt())).thenReturn(0);
+
+        assertThatThrownBy(() -> inventory.reserveVol(booking(8, 3L, 2)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("retour");
+        verify(volRepository, never()).reservePlaces(eq(8L), anyInt());
+
+        assertThatThrownBy(() -> inventory.reserveVols(List.of(booking(8, null, 1), booking(3, null, 1))))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("#3");
+        verify(volRepository, never()).reservePlaces(eq(8L), anyInt());
+    }
+}
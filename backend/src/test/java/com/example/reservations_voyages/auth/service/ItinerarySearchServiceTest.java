@@ -0,0 +1,115 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.Itinerary;
+import com.example.reservations_voyages.auth.dto.ItineraryLeg;
+import com.example.reservations_voyages.auth.dto.ItinerarySearchResponse;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import com.example.reservations_voyages.user.entity.Vol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ItinerarySearchServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 6, 1);
+
+    private final VolRouteIndex index = new VolRouteIndex(mock(JdbcTemplate.class));
+    private final ItinerarySearchService service = new ItinerarySearchService(index);
+
+    private void vol(long id, String from, String to, String dep, String arr, int prix, int places) {
+        Vol v = new Vol();
+        v.setId(id);
+        v.setAeroportDepart(from);
+        v.setAeroportArrivee(to);
+        v.setDateHeureDepart(LocalDateTime.of(DAY, LocalTime.parse(dep)));
+        v.setDateHeureArrivee(LocalDateTime.of(DAY, LocalTime.parse(arr)));
+        v.setPrixBase(BigDecimal.valueOf(prix));
+        v.setPlacesDisponibles(places);
+        v.setStatut("DISPONIBLE");
+        index.volSaved(v);
+    }
+
+    // graphe : A->C direct (lent, cher), A->B->C (rapide), A->B->D->C (le moins cher, 2 escales)
+    @BeforeEach
+    void graph() {
+        vol(1, "A", "C", "08:00", "14:00", 500, 10);
+        vol(2, "A", "B", "08:00", "09:00", 100, 10);
+        vol(3, "B", "C", "10:00", "11:00", 100, 10);
+        vol(4, "B", "C", "09:15", "10:00", 10, 10);   // correspondance de 15 min : trop courte
+        vol(5, "B", "A", "10:00", "11:00", 10, 10);   // retour au départ : boucle
+        vol(7, "B", "D", "10:00", "11:00", 50, 10);
+        vol(8, "D", "C", "12:00", "13:00", 20, 10);
+        vol(9, "A", "C", "07:00", "08:00", 50, 1);    // une seule place
+    }
+
+    private ItinerarySearchResponse search(int nbPlaces, int maxStops) {
+        return service.search("A", "C", DAY, nbPlaces, maxStops, 45, 360, 5);
+    }
+
+    private static List<List<Long>> volIds(List<Itinerary> its) {
+        return its.stream().map(it -> it.legs().stream().map(ItineraryLeg::volId).toList()).toList();
+    }
+
+    @Test
+    void oneStopRespectsConnectionWindowAndSeats() {
+        ItinerarySearchResponse res = search(2, 1);
+
+        assertThat(volIds(res.fastest())).containsExactly(List.of(2L, 3L), List.of(1L));
+        assertThat(volIds(res.cheapest())).containsExactly(List.of(2L, 3L), List.of(1L));
+
+        Itinerary best = res.fastest().get(0);
+        assertThat(best.correspondances()).isEqualTo(1);
+        assertThat(best.dureeMinutes()).isEqualTo(180);
+        assertThat(best.totalPrice()).isEqualByComparingTo("400"); // (100 + 100) x 2 places
+    }
+
+    @Test
+    void twoStopsFindCheaperPathWithoutLoops() {
+        ItinerarySearchResponse res = search(2, 2);
+
+        assertThat(volIds(res.fastest())).containsExactly(List.of(2L, 3L), List.of(2L, 7L, 8L), List.of(1L));
+        assertThat(volIds(res.cheapest())).containsExactly(List.of(2L, 7L, 8L), List.of(2L, 3L), List.of(1L));
+
+        for (Itinerary it : res.fastest()) {
+            Set<String> airports = new HashSet<>();
+            airports.add(it.legs().get(0).aeroportDepart());
+            it.legs().forEach(l -> assertThat(airports.add(l.aeroportArrivee())).isTrue());
+        }
+    }
+
+    @Test
+    void directOnlyAndSeatFilter() {
+        assertThat(volIds(search(1, 0).fastest())).containsExactly(List.of(9L), List.of(1L));
+        assertThat(volIds(search(2, 0).fastest())).containsExactly(List.of(1L));
+    }
+
+    @Test
+    void limitKeepsTheBestCandidates() {
+        ItinerarySearchResponse res = service.search("A", "C", DAY, 1, 2, 45, 360, 1);
+
+        assertThat(volIds(res.fastest())).containsExactly(List.of(9L));
+        assertThat(volIds(res.cheapest())).containsExactly(List.of(9L));
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> service.search("A", "A", DAY, 1, 1, 45, 360, 5))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.search("A", "C", DAY, 1, 3, 45, 360, 5))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.search("A", "C", DAY, 1, 1, 90, 30, 5))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
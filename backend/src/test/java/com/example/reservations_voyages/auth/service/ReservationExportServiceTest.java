@@ -0,0 +1,26 @@
+package com.example.reservations_voyages.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationExportServiceTest {
+
+    @Test
+    void formulasAreExportedAsText() {
+        assertThat(ReservationExportService.csv("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+        assertThat(ReservationExportService.csv("+33 6 12")).isEqualTo("'+33 6 12");
+        assertThat(ReservationExportService.csv("-2+3")).isEqualTo("'-2+3");
+        assertThat(ReservationExportService.csv("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(ReservationExportService.csv("\tcmd")).isEqualTo("'\tcmd");
+    }
+
+    @Test
+    void plainValuesAndQuoting() {
+        assertThat(ReservationExportService.csv(null)).isEmpty();
+        assertThat(ReservationExportService.csv("")).isEmpty();
+        assertThat(ReservationExportService.csv("a@b.c")).isEqualTo("a@b.c");
+        assertThat(ReservationExportService.csv("Dupont, Jean")).isEqualTo("\"Dupont, Jean\"");
+        assertThat(ReservationExportService.csv("ligne\nsuivante")).isEqualTo("\"ligne\nsuivante\"");
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.user.entity.ReservationStatus;
+import com.example.reservations_voyages.user.entity.ReservationVol;
+import com.example.reservations_voyages.user.entity.User;
+import com.example.reservations_voyages.user.entity.Vol;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static com.example.reservations_voyages.user.entity.ReservationStatus.CANCELED;
+import static com.example.reservations_voyages.user.entity.ReservationStatus.CONFIRMED;
+import static com.example.reservations_voyages.user.entity.ReservationStatus.PENDING_PAYMENT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationStatsRollupTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    // ligne de reservation_daily_stats : "jour|type|statut|dim|dimId" -> [cnt, revenue, units]
+    private record Totals(long cnt, BigDecimal revenue, long units) {
+        Totals plus(Totals o) {
+            return new Totals(cnt + o.cnt, revenue.add(o.revenue), units + o.units);
+        }
+    }
+
+    /**
+     * reservation_vols et reservation_daily_stats en mémoire : applique l'UPSERT, les delete et le
+     * REBUILD_SQL (grouping sets global / vol / client, fenêtre created_at optionnelle) du rollup.
+     */
+    private static final class FakeDb extends JdbcTemplate {
+        final List<ReservationVol> reservations = new ArrayList<>();
+        final Map<String, Totals> stats = new TreeMap<>();
+        final List<List<Object[]>> batches = new ArrayList<>();
+
+        @Override
+        public void execute(String sql) {
+            // lock table : rien à faire, un seul thread
+        }
+
+        @Override
+        public int update(String sql) {
+            if (sql.startsWith("delete")) {
+                stats.clear();
+                return 0;
+            }
+            return rebuild(null, null);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("delete")) {
+                String day = args[0] + "|";
+                stats.keySet().removeIf(k -> k.startsWith(day));
+                return 0;
+            }
+            return rebuild(((Timestamp) args[0]).toLocalDateTime(), ((Timestamp) args[1]).toLocalDateTime());
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> rows) {
+            batches.add(rows);
+            for (Object[] r : rows) {
+                stats.merge(key((Date) r[0], (String) r[1], (String) r[2], (String) r[3], (Long) r[4]),
+                        new Totals((Long) r[5], (BigDecimal) r[6], (Long) r[7]), Totals::plus);
+            }
+            return new int[rows.size()];
+        }
+
+        private int rebuild(LocalDateTime from, LocalDateTime to) {
+            for (ReservationVol r : reservations) {
+                if (from != null && (r.getCreatedAt().isBefore(from) || !r.getCreatedAt().isBefore(to))) continue;
+                Date day = Date.valueOf(r.getCreatedAt().toLocalDate());
+                String status = r.getStatus().name();
+                Totals t = new Totals(1, r.getTotalPrice(), r.getNbPlaces());
+                stats.merge(key(day, "VOL", status, "ALL", 0), t, Totals::plus);
+                stats.merge(key(day, "VOL", status, "VOL", r.getVol().getId()), t, Totals::plus);
+                stats.merge(key(day, "VOL", status, "CLIENT", r.getClient().getId()), t, Totals::plus);
+            }
+            return 0;
+        }
+
+        static String key(Date day, String type, String status, String dim, long dimId) {
+            return day + "|" + type + "|" + status + "|" + dim + "|" + dimId;
+        }
+    }
+
+    private final FakeDb db = new FakeDb();
+    private final ReservationTopKIndex topK = mock(ReservationTopKIndex.class);
+    private final AdminReservationStatsService statsService = mock(AdminReservationStatsService.class);
+    private final TransactionTemplate tx = new TransactionTemplate() {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(mock(TransactionStatus.class));
+        }
+    };
+    private final ReservationStatsRollup rollup = new ReservationStatsRollup(db, tx, topK, statsService, 2);
+
+    private static ReservationVol booking(LocalDateTime createdAt, long volId, long clientId, String price, int places) {
+        Vol vol = new Vol();
+        vol.setId(volId);
+        User client = mock(User.class);
+        when(client.getId()).thenReturn(clientId);
+
+        ReservationVol r = new ReservationVol();
+        r.setVol(vol);
+        r.setClient(client);
+        r.setCreatedAt(createdAt);
+        r.setTotalPrice(new BigDecimal(price));
+        r.setNbPlaces(places);
+        return r;
+    }
+
+    private Totals row(LocalDate day, ReservationStatus status, String dim, long dimId) {
+        return db.stats.get(FakeDb.key(Date.valueOf(day), "VOL", status.name(), dim, dimId));
+    }
+
+    private static Totals totals(long cnt, String revenue, long units) {
+        return new Totals(cnt, new BigDecimal(revenue), units);
+    }
+
+    // transaction du service appelant : écriture au beforeCommit, publication après commit
+    private void inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void cancel(ReservationVol r) {
+        ReservationStatus from = r.getStatus();
+        r.setStatus(CANCELED);
+        rollup.statusChanged(r, from);
+    }
+
+    @Test
+    void bookingThenCancelMovesEveryRowToCanceled() {
+        ReservationVol r = booking(TODAY.atTime(10, 0), 7, 3, "240.00", 2);
+
+        inTransaction(() -> rollup.created(r));
+        assertThat(row(TODAY, PENDING_PAYMENT, "ALL", 0)).isEqualTo(totals(1, "240.00", 2));
+        assertThat(row(TODAY, PENDING_PAYMENT, "VOL", 7)).isEqualTo(totals(1, "240.00", 2));
+        assertThat(row(TODAY, PENDING_PAYMENT, "CLIENT", 3)).isEqualTo(totals(1, "240.00", 2));
+
+        inTransaction(() -> cancel(r));
+        for (String[] dim : new String[][]{{"ALL", "0"}, {"VOL", "7"}, {"CLIENT", "3"}}) {
+            long id = Long.parseLong(dim[1]);
+            assertThat(row(TODAY, PENDING_PAYMENT, dim[0], id)).as(dim[0]).isEqualTo(totals(0, "0.00", 0));
+            assertThat(row(TODAY, CANCELED, dim[0], id)).as(dim[0]).isEqualTo(totals(1, "240.00", 2));
+        }
+
+        // tops : +1 à la création, solde nul au changement de statut ; dashboard invalidé à chaque fois
+        verify(topK).add("VOL", TODAY, 7, 1);
+        verify(topK).add("VOL", TODAY, 7, 0);
+        verify(topK).add("CLIENT", TODAY, 3, 1);
+        verify(topK, never()).add(eq("ALL"), eq(TODAY), anyLong(), anyLong());
+        verify(statsService, times(2)).invalidate(Set.of(TODAY));
+    }
+
+    @Test
+    void bookingAndCancelInOneTransactionWriteOnlyTheNetRows() {
+        ReservationVol r = booking(TODAY.atTime(10, 0), 7, 3, "240.00", 2);
+
+        inTransaction(() -> {
+            rollup.created(r);
+            cancel(r);
+            assertThat(db.batches).isEmpty();   // rien avant le commit
+        });
+
+        // PENDING_PAYMENT +1 puis -1 : ligne nulle, non écrite ; lot trié par clé
+        assertThat(db.batches).hasSize(1);
+        assertThat(db.batches.get(0)).extracting(row -> row[2] + "/" + row[3])
+                .containsExactly("CANCELED/ALL", "CANCELED/CLIENT", "CANCELED/VOL");
+        assertThat(row(TODAY, CANCELED, "ALL", 0)).isEqualTo(totals(1, "240.00", 2));
+        assertThat(row(TODAY, PENDING_PAYMENT, "ALL", 0)).isNull();
+    }
+
+    @Test
+    void rebuildRecentMatchesRebuildAll() {
+        LocalDate old = TODAY.minusDays(10);
+        LocalDate touched = TODAY.minusDays(5);
+        LocalDate yesterday = TODAY.minusDays(1);
+
+        ReservationVol onTouchedDay = booking(touched.atTime(9, 0), 2, 1, "80.00", 1);
+        ReservationVol lateYesterday = booking(yesterday.atTime(23, 59, 59), 1, 2, "150.00", 3);
+        db.reservations.addAll(List.of(
+                booking(old.atTime(8, 0), 1, 1, "100.00", 1),
+                booking(old.atTime(12, 0), 2, 2, "200.00", 2),
+                onTouchedDay,
+                lateYesterday,
+                booking(TODAY.atStartOfDay(), 1, 1, "120.00", 2)));
+        rollup.rebuildAll();
+
+        // cette instance : annulation d'une réservation créée il y a 5 jours (jour "touché")
+        cancel(onTouchedDay);
+        // autres instances, sans événement ici : réservation du jour, confirmation d'hier
+        db.reservations.add(booking(TODAY.atTime(11, 30), 3, 2, "90.00", 1));
+        lateYesterday.setStatus(CONFIRMED);
+        // dérive sur le jour touché (écriture d'une autre instance) : corrigée aussi
+        db.reservations.add(booking(touched.atTime(18, 0), 2, 2, "60.00", 1));
+
+        Map<String, Totals> before = new TreeMap<>(db.stats);
+        rollup.rebuildRecent();
+        Map<String, Totals> recent = new TreeMap<>(db.stats);
+
+        rollup.rebuildAll();
+        assertThat(recent).isNotEqualTo(before).isEqualTo(db.stats);
+        verify(statsService).invalidate(new TreeSet<>(List.of(touched, yesterday, TODAY)));
+    }
+}
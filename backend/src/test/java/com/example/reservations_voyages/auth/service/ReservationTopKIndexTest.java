@@ -0,0 +1,141 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.service.ReservationTopKIndex.Estimate;
+import com.example.reservations_voyages.auth.service.ReservationTopKIndex.SpaceSaving;
+import com.example.reservations_voyages.auth.service.ReservationTopKIndex.TopK;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReservationTopKIndexTest {
+
+    private static final int CAPACITY = 16;
+    private static final int IDS = 400;
+
+    // flux biaisé (type Zipf, s = 1.1) : quelques ids très fréquents, une longue traîne
+    private static List<Long> zipf(long seed, int size) {
+        double[] cumul = new double[IDS];
+        double total = 0;
+        for (int i = 0; i < IDS; i++) {
+            total += 1 / Math.pow(i + 1, 1.1);
+            cumul[i] = total;
+        }
+        Random random = new Random(seed);
+        List<Long> stream = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            double x = random.nextDouble() * total;
+            int i = 0;
+            while (cumul[i] < x) i++;
+            stream.add((long) i + 1);
+        }
+        return stream;
+    }
+
+    private static Map<Long, Long> counts(List<Long> stream) {
+        return stream.stream().collect(Collectors.groupingBy(id -> id, Collectors.counting()));
+    }
+
+    // compte - erreur <= réel <= compte pour chaque élément rendu, réel <= errorBound pour les autres
+    private static void assertBounds(TopK top, Map<Long, Long> truth) {
+        Set<Long> returned = top.items().stream().map(Estimate::id).collect(Collectors.toSet());
+        for (Estimate e : top.items()) {
+            long real = truth.getOrDefault(e.id(), 0L);
+            assertThat(real).as("id %d", e.id()).isBetween(e.count() - e.error(), e.count());
+        }
+        truth.forEach((id, real) -> {
+            if (!returned.contains(id)) assertThat(real).as("id %d absent", id).isLessThanOrEqualTo(top.errorBound());
+        });
+    }
+
+    @Test
+    void offerKeepsBoundsOnSkewedStream() {
+        List<Long> stream = zipf(1, 20_000);
+        SpaceSaving s = new SpaceSaving(CAPACITY);
+        stream.forEach(id -> s.offer(id, 1));
+
+        Map<Long, Long> truth = counts(stream);
+        for (int n : new int[]{1, 5, 10, CAPACITY}) assertBounds(s.top(n), truth);
+
+        // les plus fréquents du flux sont en tête
+        assertThat(s.top(3).items()).extracting(Estimate::id).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void errorBoundCoversTrackedItemsBelowTheCut() {
+        SpaceSaving s = new SpaceSaving(CAPACITY);
+        s.offer(1, 100);
+        s.offer(2, 50);
+        s.offer(3, 40);
+        s.offer(4, 30);
+
+        TopK top = s.top(2);
+        assertThat(top.items()).extracting(Estimate::id).containsExactly(1L, 2L);
+        assertThat(top.errorBound()).isEqualTo(40);   // id 3, suivi mais hors du résultat
+        assertThat(s.top(10).errorBound()).isZero();   // tout est exact et rendu
+    }
+
+    @Test
+    void loadKeepsBoundsWhenTruncated() {
+        // chargement depuis l'agrégat : comptes exacts, décroissants, au-delà de la capacité
+        Map<Long, Long> truth = counts(zipf(2, 20_000));
+        SpaceSaving s = new SpaceSaving(CAPACITY);
+        truth.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .forEach(e -> s.load(e.getKey(), e.getValue()));
+
+        for (int n : new int[]{1, 5, CAPACITY}) assertBounds(s.top(n), truth);
+        assertThat(s.top(CAPACITY).items()).allMatch(e -> e.error() == 0);
+    }
+
+    @Test
+    void mergeKeepsBoundsAcrossDays() {
+        List<SpaceSaving> parts = new ArrayList<>();
+        Map<Long, Long> truth = new HashMap<>();
+        for (int day = 0; day < 7; day++) {
+            List<Long> stream = zipf(100 + day, 3_000);
+            SpaceSaving s = new SpaceSaving(CAPACITY);
+            stream.forEach(id -> s.offer(id, 1));
+            parts.add(s);
+            counts(stream).forEach((id, c) -> truth.merge(id, c, Long::sum));
+        }
+
+        SpaceSaving merged = ReservationTopKIndex.merge(parts, CAPACITY);
+        for (int n : new int[]{1, 5, 10, CAPACITY}) assertBounds(merged.top(n), truth);
+        assertThat(merged.top(1).items()).extracting(Estimate::id).containsExactly(1L);
+
+        // fusion de résumés déjà fusionnés
+        SpaceSaving twice = ReservationTopKIndex.merge(
+                List.of(ReservationTopKIndex.merge(parts.subList(0, 3), CAPACITY),
+                        ReservationTopKIndex.merge(parts.subList(3, 7), CAPACITY)), CAPACITY);
+        assertBounds(twice.top(10), truth);
+    }
+
+    @Test
+    void topOverAPeriodMergesItsDays() {
+        ReservationTopKIndex index = new ReservationTopKIndex(mock(JdbcTemplate.class), CAPACITY);
+        LocalDate d = LocalDate.of(2026, 3, 1);
+        index.add("VOL", d, 10, 3);
+        index.add("VOL", d.plusDays(1), 10, 2);
+        index.add("VOL", d.plusDays(1), 20, 4);
+        index.add("VOL", d.plusDays(5), 30, 9);
+        index.add("HOTEL", d, 10, 7);
+
+        TopK top = index.top("VOL", d, d.plusDays(1), 1);
+        assertThat(top.items()).containsExactly(new Estimate(10, 5, 0));
+        assertThat(top.errorBound()).isEqualTo(4);
+
+        index.rebuild();
+        assertThat(index.top("VOL", d, d.plusDays(5), 5).items()).isEmpty();
+    }
+}
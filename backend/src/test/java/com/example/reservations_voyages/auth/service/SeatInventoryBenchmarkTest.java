@@ -0,0 +1,215 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Débit de réservation de places : chemin verrouillé en base (UPDATE conditionnel + insert dans la
+ * même transaction, app.inventory.vols.in-memory=false) contre SeatInventoryEngine (compteur mémoire
+ * + insert seats_synced = false, flush périodique), sur un vrai PostgreSQL (Testcontainers, Docker requis).
+ *
+ * Opt-in, ignoré par "mvn test" :
+ *   mvn test -Dtest=SeatInventoryBenchmarkTest -Dbenchmark=true
+ *       [-Dbenchmark.threads=32] [-Dbenchmark.bookings=20000] [-Dbenchmark.flights=1]
+ *
+ * benchmark.flights=1 : un seul vol très demandé (contention maximale sur sa ligne).
+ * Affiche réservations/s et latences p50 / p99 ; vérifie seulement l'absence de survente et que le
+ * stock en base est exact après flush (les chiffres dépendent de la machine).
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SeatInventoryBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int BOOKINGS = Integer.getInteger("benchmark.bookings", 20_000);
+    private static final int FLIGHTS = Integer.getInteger("benchmark.flights", 1);
+    private static final int FLUSH_INTERVAL_MS = 500;
+
+    // colonnes utilisées par VolRepository.reservePlaces et SeatInventoryEngine (LOAD_SQL / FLUSH_SQL)
+    private static final String SCHEMA = """
+        create table vols (
+            id bigint primary key,
+            places_disponibles int not null,
+            version bigint not null default 0
+        );
+        create table reservation_vols (
+            id bigserial primary key,
+            vol_id bigint not null references vols(id),
+            vol_retour_id bigint references vols(id),
+            nb_places int not null,
+            status varchar(32) not null,
+            seats_synced boolean not null
+        );
+        create index on reservation_vols (id) where seats_synced = false;
+        """;
+
+    private static final String RESERVE_SQL = """
+        update vols set places_disponibles = places_disponibles - ?, version = version + 1
+        where id = ? and places_disponibles >= ?
+        """;
+    private static final String INSERT_SQL = """
+        insert into reservation_vols (vol_id, nb_places, status, seats_synced) values (?, 1, 'PENDING_PAYMENT', ?)
+        """;
+
+    private interface Booking {
+        boolean book(long volId);
+    }
+
+    private record Result(String path, double perSecond, double p50Ms, double p99Ms) {}
+
+    private static PostgreSQLContainer postgres;
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbc;
+    private static TransactionTemplate tx;
+
+    @BeforeAll
+    static void start() {
+        postgres = new PostgreSQLContainer("postgres:16-alpine");
+        postgres.start();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl());
+        dataSource.setUsername(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        dataSource.setMaximumPoolSize(THREADS + 2);
+        jdbc = new JdbcTemplate(dataSource);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbc.execute(SCHEMA);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (dataSource != null) dataSource.close();
+        if (postgres != null) postgres.stop();
+    }
+
+    @Test
+    void dbLockedVersusInMemory() throws Exception {
+        // chauffe (JIT, pool de connexions, cache PostgreSQL) puis mesure
+        dbLocked(BOOKINGS / 10);
+        inMemory(BOOKINGS / 10);
+
+        Result db = dbLocked(BOOKINGS);
+        Result mem = inMemory(BOOKINGS);
+
+        System.out.printf("%nSeat booking, %d threads, %d bookings, %d flight(s)%n", THREADS, BOOKINGS, FLIGHTS);
+        for (Result r : List.of(db, mem)) {
+            System.out.printf("  %-10s %10.0f bookings/s   p50 %6.2f ms   p99 %6.2f ms%n",
+                    r.path(), r.perSecond(), r.p50Ms(), r.p99Ms());
+        }
+    }
+
+    // ===================== CHEMINS MESURÉS =====================
+    private Result dbLocked(int bookings) throws Exception {
+        reset(bookings);
+        Result r = run("db-locked", bookings, volId -> Boolean.TRUE.equals(tx.execute(s -> {
+            if (jdbc.update(RESERVE_SQL, 1, volId, 1) == 0) return false;
+            jdbc.update(INSERT_SQL, volId, true);
+            return true;
+        })));
+        checkStock(bookings);
+        return r;
+    }
+
+    private Result inMemory(int bookings) throws Exception {
+        reset(bookings);
+        SeatInventoryEngine engine = new SeatInventoryEngine(jdbc, tx);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "flushBatchSize", 1000);
+
+        // write-behind comme en production (inventoryScheduler)
+        var flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(engine::scheduledFlush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Result r;
+        try {
+            r = run("in-memory", bookings, volId -> {
+                if (engine.reserve(volId, null, 1) != SeatInventoryEngine.OK) return false;
+                tx.executeWithoutResult(s -> jdbc.update(INSERT_SQL, volId, false));
+                return true;
+            });
+        } finally {
+            flusher.shutdown();
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        engine.flush();
+        checkStock(bookings);
+        return r;
+    }
+
+    private Result run(String path, int bookings, Booking booking) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        int perThread = bookings / THREADS;
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int count = t < bookings % THREADS ? perThread + 1 : perThread;
+            futures.add(pool.submit(() -> {
+                long[] latencies = new long[count];
+                start.await();
+                for (int i = 0; i < count; i++) {
+                    long volId = 1 + ThreadLocalRandom.current().nextInt(FLIGHTS);
+                    long t0 = System.nanoTime();
+                    assertThat(booking.book(volId)).isTrue();
+                    latencies[i] = System.nanoTime() - t0;
+                }
+                return latencies;
+            }));
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        long[] all = new long[bookings];
+        int n = 0;
+        for (Future<long[]> f : futures) {
+            long[] l = f.get();
+            System.arraycopy(l, 0, all, n, l.length);
+            n += l.length;
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        pool.shutdown();
+
+        Arrays.sort(all);
+        return new Result(path, bookings / seconds,
+                all[(int) (bookings * 0.50)] / 1e6, all[Math.min(bookings - 1, (int) (bookings * 0.99))] / 1e6);
+    }
+
+    // ===================== DONNÉES =====================
+    // stock juste suffisant : toutes les réservations passent, la dernière vide le vol
+    private void reset(int bookings) {
+        jdbc.execute("truncate reservation_vols, vols restart identity");
+        List<Object[]> vols = new ArrayList<>();
+        for (long id = 1; id <= FLIGHTS; id++) vols.add(new Object[]{id, bookings});
+        jdbc.batchUpdate("insert into vols (id, places_disponibles) values (?, ?)", vols);
+    }
+
+    // stock en base = stock initial - réservations, aucune ligne en attente de flush
+    private void checkStock(int bookings) {
+        Integer remaining = jdbc.queryForObject("select sum(places_disponibles) from vols", Integer.class);
+        Integer booked = jdbc.queryForObject("select count(*) from reservation_vols", Integer.class);
+        Integer unsynced = jdbc.queryForObject(
+                "select count(*) from reservation_vols where seats_synced = false", Integer.class);
+        assertThat(booked).isEqualTo(bookings);
+        assertThat(remaining).isEqualTo(FLIGHTS * bookings - bookings);
+        assertThat(unsynced).isZero();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.reservations_voyages.auth.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SeatInventoryEngineTest {
+
+    private static final long ALLER = 1L;
+    private static final long RETOUR = 2L;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SeatInventoryEngine engine = new SeatInventoryEngine(jdbcTemplate, mock(TransactionTemplate.class));
+
+    private void seats(long volId, int n) {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(volId))).thenReturn(n);
+    }
+
+    @Test
+    void roundTripReservesBothLegsOrNone() {
+        seats(ALLER, 5);
+        seats(RETOUR, 2);
+
+        assertThat(engine.reserve(ALLER, RETOUR, 3)).isEqualTo(SeatInventoryEngine.NO_SEATS_RETOUR);
+        // l'aller n'a pas été décompté
+        assertThat(engine.reserve(ALLER, null, 5)).isEqualTo(SeatInventoryEngine.OK);
+        assertThat(engine.reserve(ALLER, null, 1)).isEqualTo(SeatInventoryEngine.NO_SEATS_ALLER);
+    }
+
+    @Test
+    void releaseAndAdjustShiftRemainingSeats() {
+        seats(ALLER, 2);
+
+        assertThat(engine.reserve(ALLER, null, 2)).isEqualTo(SeatInventoryEngine.OK);
+        engine.release(ALLER, null, 1);
+        engine.adjust(ALLER, 3);
+        assertThat(engine.reserve(ALLER, null, 4)).isEqualTo(SeatInventoryEngine.OK);
+        assertThat(engine.reserve(ALLER, null, 1)).isEqualTo(SeatInventoryEngine.NO_SEATS_ALLER);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        int allerSeats = 500;
+        int retourSeats = 300;
+        seats(ALLER, allerSeats);
+        seats(RETOUR, retourSeats);
+
+        AtomicInteger allerTaken = new AtomicInteger();
+        AtomicInteger retourTaken = new AtomicInteger();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    for (int i = 0; i < 2_000; i++) {
+                        int n = 1 + rnd.nextInt(3);
+                        // allers simples, retours simples et allers-retours dans les deux sens
+                        switch (rnd.nextInt(4)) {
+                            case 0 -> {
+                                if (engine.reserve(ALLER, null, n) == SeatInventoryEngine.OK) allerTaken.addAndGet(n);
+                            }
+                            case 1 -> {
+                                if (engine.reserve(RETOUR, null, n) == SeatInventoryEngine.OK) retourTaken.addAndGet(n);
+                            }
+                            case 2 -> {
+                                if (engine.reserve(ALLER, RETOUR, n) == SeatInventoryEngine.OK) {
+                                    allerTaken.addAndGet(n);
+                                    retourTaken.addAndGet(n);
+                                }
+                            }
+                            default -> {
+                                if (engine.reserve(RETOUR, ALLER, n) == SeatInventoryEngine.OK) {
+                                    allerTaken.addAndGet(n);
+                                    retourTaken.addAndGet(n);
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(allerTaken.get()).isLessThanOrEqualTo(allerSeats);
+        assertThat(retourTaken.get()).isLessThanOrEqualTo(retourSeats);
+
+        // le reste en mémoire correspond exactement aux places non vendues
+        int allerLeft = allerSeats - allerTaken.get();
+        int retourLeft = retourSeats - retourTaken.get();
+        if (allerLeft > 0) assertThat(engine.reserve(ALLER, null, allerLeft)).isEqualTo(SeatInventoryEngine.OK);
+        if (retourLeft > 0) assertThat(engine.reserve(RETOUR, null, retourLeft)).isEqualTo(SeatInventoryEngine.OK);
+        assertThat(engine.reserve(ALLER, null, 1)).isEqualTo(SeatInventoryEngine.NO_SEATS_ALLER);
+        assertThat(engine.reserve(RETOUR, null, 1)).isEqualTo(SeatInventoryEngine.NO_SEATS_ALLER);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.FareDay;
+import com.example.reservations_voyages.auth.dto.RouteFlight;
+import com.example.reservations_voyages.user.entity.Vol;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VolRouteIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 6, 1, 8, 0);
+
+    // JdbcTemplate simulé : rebuild() lit une table vide
+    private final VolRouteIndex index = new VolRouteIndex(mock(JdbcTemplate.class));
+
+    static Vol vol(long id, String from, String to, LocalDateTime depart, String prix, int places) {
+        Vol v = new Vol();
+        v.setId(id);
+        v.setAeroportDepart(from);
+        v.setAeroportArrivee(to);
+        v.setDateHeureDepart(depart);
+        v.setDateHeureArrivee(depart.plusHours(2));
+        v.setPrixBase(new BigDecimal(prix));
+        v.setPlacesDisponibles(places);
+        v.setStatut("DISPONIBLE");
+        return v;
+    }
+
+    private List<Long> ids(List<RouteFlight> flights) {
+        return flights.stream().map(RouteFlight::volId).toList();
+    }
+
+    @Test
+    void searchIsSortedByDepartureAndFiltered() {
+        index.volSaved(vol(3, "CMN", "CDG", T0.plusDays(2), "150.00", 10));
+        index.volSaved(vol(1, "CMN", "CDG", T0, "120.00", 10));
+        index.volSaved(vol(2, "CMN", "CDG", T0.plusDays(1), "90.00", 1));
+        index.volSaved(vol(4, "CMN", "ORY", T0, "80.00", 10));
+
+        assertThat(ids(index.search("CMN", "CDG", null, null, 1))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(index.search("CMN", "CDG", T0.plusHours(1), T0.plusDays(3), 1))).containsExactly(2L, 3L);
+        assertThat(ids(index.search("CMN", "CDG", null, null, 2))).containsExactly(1L, 3L);
+        assertThat(index.search("CDG", "CMN", null, null, 1)).isEmpty();
+    }
+
+    @Test
+    void seatChangesUpdateSearchAndFareCalendar() {
+        index.volSaved(vol(1, "CMN", "CDG", T0, "120.00", 2));
+        index.volSaved(vol(2, "CMN", "CDG", T0.plusHours(4), "90.00", 1));
+        LocalDate day = T0.toLocalDate();
+
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(1)))
+                .containsExactly(new FareDay(day, new BigDecimal("90.00"), 3));
+
+        // le moins cher est complet : le prix mini du jour remonte
+        index.adjustSeats(2L, -1);
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(1)))
+                .containsExactly(new FareDay(day, new BigDecimal("120.00"), 2));
+
+        index.adjustSeats(1L, -2);
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(1))).isEmpty();
+        assertThat(index.search("CMN", "CDG", null, null, 1)).isEmpty();
+
+        index.adjustSeats(1L, 1);
+        assertThat(index.search("CMN", "CDG", null, null, 1)).singleElement()
+                .extracting(RouteFlight::placesDisponibles).isEqualTo(1);
+    }
+
+    @Test
+    void movedCancelledAndDeletedFlightsLeaveTheirRoute() {
+        index.volSaved(vol(1, "CMN", "CDG", T0, "120.00", 5));
+        index.volSaved(vol(2, "CMN", "CDG", T0.plusDays(1), "120.00", 5));
+
+        Vol moved = vol(1, "CMN", "ORY", T0, "120.00", 5);
+        index.volSaved(moved);
+        assertThat(ids(index.search("CMN", "CDG", null, null, 1))).containsExactly(2L);
+        assertThat(ids(index.search("CMN", "ORY", null, null, 1))).containsExactly(1L);
+
+        moved.setStatut("ANNULE");
+        index.volSaved(moved);
+        assertThat(index.search("CMN", "ORY", null, null, 1)).isEmpty();
+
+        index.volDeleted(2L);
+        assertThat(index.search("CMN", "CDG", null, null, 1)).isEmpty();
+        List<Long> seen = new ArrayList<>();
+        index.forEachDeparture("CMN", Long.MIN_VALUE, Long.MAX_VALUE, 1, (id, to, dep, arr, prix) -> seen.add(id));
+        assertThat(seen).isEmpty();
+    }
+
+    @Test
+    void concurrentSeatUpdatesOnOneRouteAreNotLost() throws Exception {
+        int flights = 8;
+        for (long id = 1; id <= flights; id++) {
+            index.volSaved(vol(id, "CMN", "CDG", T0.plusHours(id), "100.00", 10_000));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        index.adjustSeats(1L + (i % flights), -1);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(index.search("CMN", "CDG", null, null, 0))
+                .allSatisfy(f -> assertThat(f.placesDisponibles()).isEqualTo(10_000 - 1_000));
+        LocalDate day = T0.toLocalDate();
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(1)))
+                .containsExactly(new FareDay(day, new BigDecimal("100.00"), flights * 9_000));
+    }
+
+    @Test
+    void rebuildReplacesTheWholeIndex() {
+        index.volSaved(vol(1, "CMN", "CDG", T0, "120.00", 5));
+
+        index.rebuild();
+
+        assertThat(index.search("CMN", "CDG", null, null, 1)).isEmpty();
+        assertThat(index.fareCalendar("CMN", "CDG", T0.toLocalDate(), T0.toLocalDate().plusDays(1))).isEmpty();
+        List<Long> seen = new ArrayList<>();
+        index.forEachDeparture("CMN", Long.MIN_VALUE, Long.MAX_VALUE, 1, (id, to, dep, arr, prix) -> seen.add(id));
+        assertThat(seen).isEmpty();
+    }
+
+    // ===================== CALENDRIER (prix mini << 24 | places) =====================
+    @Test
+    void calendarCellsKeepPriceAndSeatsApart() {
+        LocalDate day = T0.toLocalDate();
+        // prix sur plus de 32 bits (en centimes) et places au-delà de 24 bits : plafonnées sans déborder sur le prix
+        index.volSaved(vol(1, "CMN", "CDG", T0, "99999999.99", 10_000_000));
+        index.volSaved(vol(2, "CMN", "CDG", T0.plusHours(3), "123456789.01", 10_000_000));
+
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(1)))
+                .containsExactly(new FareDay(day, new BigDecimal("99999999.99"), 0xFFFFFF));
+
+        index.volDeleted(2L);
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(1)))
+                .containsExactly(new FareDay(day, new BigDecimal("99999999.99"), 10_000_000));
+    }
+
+    @Test
+    void calendarDaysFollowDepartureDates() {
+        LocalDate day = T0.toLocalDate();
+        index.volSaved(vol(1, "CMN", "CDG", day.atTime(23, 59, 59), "120.00", 4));
+        index.volSaved(vol(2, "CMN", "CDG", day.plusDays(1).atStartOfDay(), "80.00", 2));
+        index.volSaved(vol(3, "CMN", "CDG", day.plusDays(3).atTime(12, 0), "60.00", 1));
+
+        // [from, to) : le jour "to" est exclu ; jours sans vol absents
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(3))).containsExactly(
+                new FareDay(day, new BigDecimal("120.00"), 4),
+                new FareDay(day.plusDays(1), new BigDecimal("80.00"), 2));
+
+        // vol déplacé : l'ancien jour et le nouveau sont recalculés
+        index.volSaved(vol(2, "CMN", "CDG", day.plusDays(3).atTime(8, 0), "80.00", 2));
+        assertThat(index.fareCalendar("CMN", "CDG", day, day.plusDays(4))).containsExactly(
+                new FareDay(day, new BigDecimal("120.00"), 4),
+                new FareDay(day.plusDays(3), new BigDecimal("60.00"), 3));
+    }
+
+    @Test
+    void rebuiltCalendarMatchesIncrementalUpdates() throws Exception {
+        List<Vol> vols = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            vols.add(vol(id, "CMN", id % 3 == 0 ? "ORY" : "CDG", T0.plusHours(id * 7),
+                    (50 + id * 13 % 90) + ".00", (int) (id % 5)));   // id % 5 == 0 : complet
+        }
+        vols.forEach(index::volSaved);
+
+        List<ResultSet> rows = new ArrayList<>();
+        for (Vol v : vols) rows.add(row(v));
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (ResultSet rs : rows) handler.processRow(rs);
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class));
+        VolRouteIndex rebuilt = new VolRouteIndex(jdbc);
+        rebuilt.rebuild();
+
+        LocalDate from = T0.toLocalDate();
+        LocalDate to = from.plusDays(15);
+        for (String arrivee : List.of("CDG", "ORY")) {
+            assertThat(index.fareCalendar("CMN", arrivee, from, to)).isNotEmpty()
+                    .isEqualTo(rebuilt.fareCalendar("CMN", arrivee, from, to));
+        }
+    }
+
+    // ligne de LOAD_SQL ; les vols du test sont déjà dans l'ordre (départ, id) de la requête
+    private static ResultSet row(Vol v) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(v.getId());
+        when(rs.getString(2)).thenReturn(v.getAeroportDepart());
+        when(rs.getString(3)).thenReturn(v.getAeroportArrivee());
+        when(rs.getTimestamp(4)).thenReturn(Timestamp.valueOf(v.getDateHeureDepart()));
+        when(rs.getBigDecimal(5)).thenReturn(v.getPrixBase());
+        when(rs.getInt(6)).thenReturn(v.getPlacesDisponibles());
+        when(rs.getTimestamp(7)).thenReturn(Timestamp.valueOf(v.getDateHeureArrivee()));
+        return rs;
+    }
+}
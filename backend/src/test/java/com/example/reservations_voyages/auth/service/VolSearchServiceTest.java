@@ -0,0 +1,52 @@
+package com.example.reservations_voyages.auth.service;
+
+import com.example.reservations_voyages.auth.dto.VolSearchCriteria;
+import com.example.reservations_voyages.common.exception.BadRequestException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class VolSearchServiceTest {
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final VolSearchService service = new VolSearchService(entityManager);
+
+    private static String cursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static VolSearchCriteria page(String sort, String cursor) {
+        return new VolSearchCriteria(null, null, null, null, null, null, null, null, sort, cursor, null);
+    }
+
+    private void assertRejected(String sort, String cursor) {
+        assertThatThrownBy(() -> service.search(page(sort, cursor)))
+                .as("%s / %s", sort, cursor)
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Curseur invalide");
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        // valeur de tri illisible : auparavant NumberFormatException / DateTimeParseException (500)
+        assertRejected("PRIX", cursor("prixBase|abc|12"));
+        assertRejected("DEPART", cursor("dateHeureDepart|2026-13-45T99:00|12"));
+        assertRejected(null, cursor("dateHeureDepart||12"));
+
+        assertRejected("PRIX", cursor("prixBase|120.50|x"));
+        assertRejected("PRIX", cursor("prixBase|120.50"));
+        assertRejected("PRIX", "%%%pas-du-base64");
+
+        // curseur d'un autre tri
+        assertRejected("PRIX", cursor("dateHeureDepart|2026-03-01T10:00|12"));
+
+        // rejeté avant toute requête
+        verifyNoInteractions(entityManager);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.reservations_voyages.common.scheduling;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulingConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskSchedulingAutoConfiguration.class))
+            .withUserConfiguration(SchedulingConfig.class)
+            .withPropertyValues("spring.task.scheduling.pool.size=4", "app.scheduling.inventory.pool-size=2");
+
+    @Test
+    void generalAndInventorySchedulersAreSeparatePools() {
+        runner.run(ctx -> {
+            ThreadPoolTaskScheduler general = (ThreadPoolTaskScheduler) ctx.getBean(TaskScheduler.class);
+            ThreadPoolTaskScheduler inventory =
+                    ctx.getBean(SchedulingConfig.INVENTORY_SCHEDULER, ThreadPoolTaskScheduler.class);
+
+            assertThat(general).isSameAs(ctx.getBean("taskScheduler"));
+            assertThat(general).isNotSameAs(inventory);
+            assertThat(general.getScheduledThreadPoolExecutor().getCorePoolSize()).isEqualTo(4);
+            assertThat(inventory.getScheduledThreadPoolExecutor().getCorePoolSize()).isEqualTo(2);
+            assertThat(inventory.getThreadNamePrefix()).isEqualTo("inventory-");
+        });
+    }
+}
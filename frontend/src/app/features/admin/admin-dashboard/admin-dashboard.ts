@@ -2,7 +2,7 @@ import { Component, ElementRef, ViewChild, OnInit, AfterViewInit, OnDestroy } fr
 import { NavigationEnd, Router, RouterOutlet } from '@angular/router';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
-import { filter, forkJoin, catchError, of, Subscription } from 'rxjs';
+import { filter, forkJoin, catchError, map, of, Subscription } from 'rxjs';
 import { Chart, ChartConfiguration, registerables } from 'chart.js';
 
 // Components
@@ -12,7 +12,6 @@ import { SidebarComponent } from '../../../layout/sidebar/sidebar';
 // Services
 import { TokenStorageService } from '../../../core/auth/token-storage';
 import { TopClient, AdminReservationsStatsService, AdminReservationStatsResponse } from '../../../services/admin-reservations-stats.service';
-import { AdminReservationsService, AdminReservationRow } from '../../../services/admin-reservations.service';
 import { VolService } from '../../../services/vol.service';
 import { HotelService } from '../../../services/hotel.service';
 import { AdminUsersService } from '../../../services/user.service';
@@ -272,7 +271,6 @@ export class AdminDashboardComponent implements OnInit, AfterViewInit, OnDestroy
     private volService: VolService,
     private hotelService: HotelService,
     private adminUsersService: AdminUsersService,
-    private adminReservationsService: AdminReservationsService,
     private statsService: AdminReservationsStatsService
   ) {
     this.initializeRouterListener();
@@ -329,10 +327,12 @@ export class AdminDashboardComponent implements OnInit, AfterViewInit, OnDestroy
           return of([]);
         })
       ),
-      reservations: this.adminReservationsService.all().pipe(
+      // compteurs tous statuts depuis l'agrégat journalier (la liste admin est paginée)
+      reservations: this.statsService.getStats('2000-01-01', this.getToday()).pipe(
+        map(s => ({ total: s.totalCount, vol: s.volCount, hotel: s.hotelCount })),
         catchError(err => {
           console.error('Error loading reservations:', err);
-          return of([] as AdminReservationRow[]);
+          return of({ total: 0, vol: 0, hotel: 0 });
         })
       ),
     }).subscribe({
@@ -341,9 +341,9 @@ export class AdminDashboardComponent implements OnInit, AfterViewInit, OnDestroy
         this.hotelsCount = results.hotels.length;
         this.usersCount = results.users.length;
         
-        this.totalReservationsCount = results.reservations.length;
-        this.volReservationsCount = results.reservations.filter(r => r.type === 'VOL').length;
-        this.hotelReservationsCount = results.reservations.filter(r => r.type === 'HOTEL').length;
+        this.totalReservationsCount = results.reservations.total;
+        this.volReservationsCount = results.reservations.vol;
+        this.hotelReservationsCount = results.reservations.hotel;
       },
       error: (error) => {
         console.error('Error loading KPIs:', error);
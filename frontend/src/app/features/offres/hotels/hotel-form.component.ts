@@ -147,6 +147,7 @@ export class HotelFormComponent implements OnInit {
         : chambresTotales,
       description: (v.description || '').trim(),
       equipements: this.equipementsArray.controls.map(c => String(c.value || '').trim()).filter(Boolean),
+      version: this.data?.version
     } as any;
 
     const req$ = (this.isEditMode && this.data?.id)
@@ -185,7 +185,8 @@ export class VolFormComponent implements OnInit {
       dateHeureArrivee: this.toLocalDateTimeString(f.dateHeureArrivee, f.heureArrivee),
       placesDisponibles: Number(f.placesDisponibles),
       prixBase: Number(f.prixBase),
-      statut: f.statut as VolStatut
+      statut: f.statut as VolStatut,
+      version: this.data?.version
     };
 
     if (this.isEditMode && this.data?.id) {
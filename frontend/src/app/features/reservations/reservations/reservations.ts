@@ -1,23 +1,12 @@
 import { Component, OnInit } from '@angular/core';
 import {  FormsModule } from '@angular/forms';
 import { NgClass, NgFor, NgIf } from '@angular/common';
-import { HttpClient } from '@angular/common/http';
-import { environment } from '../../../../environments/environment'; // ajuste si besoin
-import { catchError, of } from 'rxjs';
-import { AdminReservationsService } from '../../../services/admin-reservations.service';
-export type ReservationType = 'VOL' | 'HOTEL';
-export type ReservationStatus = 'PENDING_PAYMENT' | 'CONFIRMED' | 'CANCELED';
-
-export interface AdminReservationRow {
-  ref: string;          // "VOL-12" / "HOTEL-7"
-  id: number;
-  clientName: string;
-  clientEmail: string;
-  type: ReservationType;
-  createdAt: string;    // ISO string
-  amount: number;       // BigDecimal -> number côté front
-  status: ReservationStatus;
-}
+import {
+  AdminReservationRow,
+  AdminReservationsService,
+  ReservationStatus,
+  ReservationType
+} from '../../../services/admin-reservations.service';
 
 @Component({
   selector: 'app-reservations',
@@ -29,23 +18,25 @@ export interface AdminReservationRow {
 export class ReservationsComponent implements OnInit {
 
   loading = false;
+  loadingMore = false;
   message = '';
 
+  // pages déjà chargées (plus récentes d'abord) ; nextCursor = null : tout est chargé
   rows: AdminReservationRow[] = [];
   filtered: AdminReservationRow[] = [];
+  nextCursor: string | null = null;
 
-  // filtres
+  // filtres : type / statut côté serveur, recherche texte sur les lignes chargées
   q = '';
   type: 'ALL' | ReservationType = 'ALL';
   status: 'ALL' | ReservationStatus = 'ALL';
 
-  // KPI
+  // KPI (lignes chargées)
   total = 0;
   volCount = 0;
   hotelCount = 0;
-  private base = environment.apiUrl;
 
-  constructor(private http: HttpClient,private api: AdminReservationsService) {}
+  constructor(private api: AdminReservationsService) {}
 
   ngOnInit(): void {
     this.load();
@@ -54,21 +45,36 @@ export class ReservationsComponent implements OnInit {
   load() {
     this.loading = true;
     this.message = '';
+    this.rows = [];
+    this.nextCursor = null;
+    this.fetch(() => this.loading = false);
+  }
 
-    this.http.get<AdminReservationRow[]>(`${this.base}/api/admin/reservations`)
-      .pipe(
-        catchError(err => {
-          console.error(err);
-          this.message = err?.error?.message || 'Erreur chargement réservations';
-          return of([]);
-        })
-      )
-      .subscribe(data => {
-        this.rows = data || [];
+  loadMore() {
+    if (!this.nextCursor || this.loadingMore) return;
+    this.loadingMore = true;
+    this.fetch(() => this.loadingMore = false);
+  }
+
+  private fetch(done: () => void) {
+    const filters = {
+      type: this.type === 'ALL' ? undefined : this.type,
+      status: this.status === 'ALL' ? undefined : this.status
+    };
+    this.api.page(filters, this.nextCursor).subscribe({
+      next: page => {
+        this.rows = [...this.rows, ...(page.items || [])];
+        this.nextCursor = page.nextCursor;
         this.computeKpis();
         this.applyFilters();
-        this.loading = false;
-      });
+        done();
+      },
+      error: err => {
+        console.error(err);
+        this.message = err?.error?.message || 'Erreur chargement réservations';
+        done();
+      }
+    });
   }
 
   computeKpis() {
@@ -80,25 +86,19 @@ export class ReservationsComponent implements OnInit {
   applyFilters() {
     const q = (this.q || '').trim().toLowerCase();
 
-    this.filtered = this.rows.filter(r => {
-      const matchesQ =
-        !q ||
-        (r.ref || '').toLowerCase().includes(q) ||
-        (r.clientName || '').toLowerCase().includes(q) ||
-        (r.clientEmail || '').toLowerCase().includes(q);
-
-      const matchesType = this.type === 'ALL' || r.type === this.type;
-      const matchesStatus = this.status === 'ALL' || r.status === this.status;
-
-      return matchesQ && matchesType && matchesStatus;
-    });
+    this.filtered = this.rows.filter(r =>
+      !q ||
+      (r.ref || '').toLowerCase().includes(q) ||
+      (r.clientName || '').toLowerCase().includes(q) ||
+      (r.clientEmail || '').toLowerCase().includes(q)
+    );
   }
 
   resetFilters() {
     this.q = '';
     this.type = 'ALL';
     this.status = 'ALL';
-    this.applyFilters();
+    this.load();
   }
 
   // ⚠️ Actions : pour l’instant juste placeholders (tu me dis ce que tu veux)
@@ -12,6 +12,7 @@ export interface Hotel {
 
   description?: string;
   equipements: string[];
+  version?: number; // verrou optimiste, renvoyé tel quel à la modification
 }
 
 
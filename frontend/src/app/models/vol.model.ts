@@ -9,6 +9,7 @@ export interface Vol {
   placesDisponibles: number;
   prixBase: number;
   statut: 'DISPONIBLE' | 'COMPLET' | 'ANNULE';
+  version?: number; // verrou optimiste, renvoyé tel quel à la modification
 }
 
 export type VolStatut = 'DISPONIBLE' | 'COMPLET' | 'ANNULE';
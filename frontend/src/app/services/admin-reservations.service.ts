@@ -1,5 +1,5 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../environments/environment';
 
@@ -17,14 +17,34 @@ export interface AdminReservationRow {
   status: ReservationStatus;
 }
 
+// page de la liste : nextCursor = null sur la dernière page, sinon à renvoyer pour la suivante
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor: string | null;
+}
+
+export interface AdminReservationFilters {
+  type?: ReservationType;
+  status?: ReservationStatus;
+  clientEmail?: string;
+  from?: string;   // yyyy-MM-dd
+  to?: string;
+}
+
 @Injectable({ providedIn: 'root' })
 export class AdminReservationsService {
   private base = environment.apiUrl;
 
   constructor(private http: HttpClient) {}
 
-  all(): Observable<AdminReservationRow[]> {
-    return this.http.get<AdminReservationRow[]>(`${this.base}/api/admin/reservations`);
+  // plus récentes d'abord ; cursor = nextCursor de la page précédente
+  page(filters: AdminReservationFilters = {}, cursor?: string | null, size = 50): Observable<CursorPage<AdminReservationRow>> {
+    let params = new HttpParams().set('size', size);
+    for (const [k, v] of Object.entries(filters)) {
+      if (v) params = params.set(k, v);
+    }
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<CursorPage<AdminReservationRow>>(`${this.base}/api/admin/reservations`, { params });
   }
 
   cancel(r: AdminReservationRow) {